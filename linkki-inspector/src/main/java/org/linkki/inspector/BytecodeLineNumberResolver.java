@@ -0,0 +1,198 @@
+package org.linkki.inspector;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves line numbers from the {@code LineNumberTable} debug attributes of the loaded class files.
+ * <p>
+ * Works without any source tree, e.g. in packaged deployments. The class file is read once through the context
+ * class loader's resources and its line table is cached per class loader and class name, so classes reloaded
+ * by a new class loader are read again. Classes that were not found are looked up again after a few seconds,
+ * and {@link SourceCodeParser#clearCache()} drops all line tables, e.g. after classes were redefined.
+ * <p>
+ * Class files only know lines that contain code: a method resolves to the first line of its body and a class
+ * to the first line with code (for classes with an implicit constructor, this is the class declaration).
+ */
+public class BytecodeLineNumberResolver implements LineNumberResolver {
+
+    private static final int CLASS_FILE_MAGIC = 0xCAFEBABE;
+    // How long a class that was not found is not looked up again
+    private static final long MISSING_RECHECK_NANOS = 2_000_000_000L;
+
+    // Class loader -> class name -> line table; class loaders are held weakly
+    private final WeakIdentityRegistry<ClassLoader, Map<String, ClassLineTable>> cache =
+            new WeakIdentityRegistry<>("bytecodeLineTables");
+
+    @Override
+    public int findMethodLine(String className, String methodName) {
+        return getLineTable(className).methodLines.getOrDefault(methodName, -1);
+    }
+
+    @Override
+    public int findClassLine(String className) {
+        return getLineTable(className).classLine;
+    }
+
+    public void clearCache() {
+        cache.clear();
+    }
+
+    private ClassLineTable getLineTable(String className) {
+        var classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader == null) {
+            classLoader = BytecodeLineNumberResolver.class.getClassLoader();
+        }
+        var tables = cache.computeIfAbsent(classLoader, l -> new ConcurrentHashMap<>());
+        var table = tables.get(className);
+        if (table == null || (table.isMissing() && System.nanoTime() - table.readAt() > MISSING_RECHECK_NANOS)) {
+            table = readLineTable(classLoader, className);
+            tables.put(className, table);
+        }
+        return table;
+    }
+
+    private static ClassLineTable readLineTable(ClassLoader classLoader, String className) {
+        var resourceName = className.replace('.', '/') + ".class";
+        try (var resource = classLoader.getResourceAsStream(resourceName)) {
+            if (resource == null) {
+                return ClassLineTable.missing();
+            }
+            return parse(new DataInputStream(new BufferedInputStream(resource)));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Inspector: Failed to read line numbers of " + className + " - " + e.getMessage());
+            return ClassLineTable.missing();
+        }
+    }
+
+    /**
+     * Minimal class file reader that only extracts the lowest line number per method name.
+     */
+    private static ClassLineTable parse(DataInputStream in) throws IOException {
+        if (in.readInt() != CLASS_FILE_MAGIC) {
+            return ClassLineTable.missing();
+        }
+        in.readUnsignedShort(); // minor version
+        in.readUnsignedShort(); // major version
+
+        var utf8 = readConstantPool(in);
+
+        in.readUnsignedShort(); // access flags
+        in.readUnsignedShort(); // this class
+        in.readUnsignedShort(); // super class
+        skipFully(in, 2L * in.readUnsignedShort()); // interfaces
+
+        var fieldCount = in.readUnsignedShort();
+        for (var i = 0; i < fieldCount; i++) {
+            skipFully(in, 6); // access flags, name, descriptor
+            skipAttributes(in);
+        }
+
+        var methodLines = new HashMap<String, Integer>();
+        var classLine = Integer.MAX_VALUE;
+        var methodCount = in.readUnsignedShort();
+        for (var i = 0; i < methodCount; i++) {
+            in.readUnsignedShort(); // access flags
+            var name = utf8[in.readUnsignedShort()];
+            in.readUnsignedShort(); // descriptor
+
+            var line = readMethodFirstLine(in, utf8);
+            if (line > 0) {
+                methodLines.merge(name, line, Math::min);
+                classLine = Math.min(classLine, line);
+            }
+        }
+
+        return new ClassLineTable(methodLines, classLine == Integer.MAX_VALUE ? -1 : classLine, false, System.nanoTime());
+    }
+
+    private static String[] readConstantPool(DataInputStream in) throws IOException {
+        var count = in.readUnsignedShort();
+        var utf8 = new String[count];
+        for (var i = 1; i < count; i++) {
+            var tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1 -> utf8[i] = in.readUTF(); // Utf8
+                case 3, 4 -> skipFully(in, 4); // Integer, Float
+                case 5, 6 -> { // Long, Double take two slots
+                    skipFully(in, 8);
+                    i++;
+                }
+                case 7, 8, 16, 19, 20 -> skipFully(in, 2); // Class, String, MethodType, Module, Package
+                case 9, 10, 11, 12, 17, 18 -> skipFully(in, 4); // Refs, NameAndType, Dynamic, InvokeDynamic
+                case 15 -> skipFully(in, 3); // MethodHandle
+                default -> throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+        return utf8;
+    }
+
+    private static int readMethodFirstLine(DataInputStream in, String[] utf8) throws IOException {
+        var firstLine = -1;
+        var attributeCount = in.readUnsignedShort();
+        for (var i = 0; i < attributeCount; i++) {
+            var name = utf8[in.readUnsignedShort()];
+            var length = in.readInt() & 0xFFFFFFFFL;
+            if (!"Code".equals(name)) {
+                skipFully(in, length);
+                continue;
+            }
+
+            skipFully(in, 4); // max stack, max locals
+            skipFully(in, in.readInt() & 0xFFFFFFFFL); // code
+            skipFully(in, 8L * in.readUnsignedShort()); // exception table
+
+            var codeAttributeCount = in.readUnsignedShort();
+            for (var j = 0; j < codeAttributeCount; j++) {
+                var codeAttributeName = utf8[in.readUnsignedShort()];
+                var codeAttributeLength = in.readInt() & 0xFFFFFFFFL;
+                if (!"LineNumberTable".equals(codeAttributeName)) {
+                    skipFully(in, codeAttributeLength);
+                    continue;
+                }
+                var entries = in.readUnsignedShort();
+                for (var k = 0; k < entries; k++) {
+                    in.readUnsignedShort(); // start pc
+                    var line = in.readUnsignedShort();
+                    if (firstLine < 0 || line < firstLine) {
+                        firstLine = line;
+                    }
+                }
+            }
+        }
+        return firstLine;
+    }
+
+    private static void skipAttributes(DataInputStream in) throws IOException {
+        var attributeCount = in.readUnsignedShort();
+        for (var i = 0; i < attributeCount; i++) {
+            in.readUnsignedShort(); // name
+            skipFully(in, in.readInt() & 0xFFFFFFFFL);
+        }
+    }
+
+    private static void skipFully(DataInputStream in, long bytes) throws IOException {
+        var remaining = bytes;
+        while (remaining > 0) {
+            var skipped = in.skip(remaining);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new IOException("Unexpected end of class file");
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+
+    private record ClassLineTable(Map<String, Integer> methodLines, int classLine, boolean isMissing, long readAt) {
+
+        static ClassLineTable missing() {
+            return new ClassLineTable(Map.of(), -1, true, System.nanoTime());
+        }
+    }
+}
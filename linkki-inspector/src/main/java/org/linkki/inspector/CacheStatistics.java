@@ -0,0 +1,18 @@
+package org.linkki.inspector;
+
+/**
+ * Snapshot of the effectiveness of one inspector lookup cache.
+ *
+ * @param name    cache name
+ * @param entries number of cached entries
+ * @param hits    lookups answered by the cache
+ * @param misses  lookups the cache could not answer
+ * @param hitRate hits relative to all lookups, 0 if there were none
+ */
+public record CacheStatistics(String name, long entries, long hits, long misses, double hitRate) {
+
+    static CacheStatistics of(String name, long entries, long hits, long misses) {
+        var lookups = hits + misses;
+        return new CacheStatistics(name, entries, hits, misses, lookups == 0 ? 0 : (double) hits / lookups);
+    }
+}
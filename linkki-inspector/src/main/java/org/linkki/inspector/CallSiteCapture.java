@@ -0,0 +1,153 @@
+package org.linkki.inspector;
+
+import org.linkki.inspector.code.PropertyLocation;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.linkki.inspector.ComponentInspector.getOutermostClassName;
+
+/**
+ * Captures call sites with a {@link StackWalker}.
+ * <p>
+ * Frames are walked lazily and the walk stops at the first qualifying frame, so the cost does not grow with
+ * the stack depth. Only class name, method name, bytecode index and line number of that frame are kept:
+ * identical call sites are deduplicated into a global table and identified by a compact integer id, which is
+ * resolved into a shared {@link PropertyLocation} on demand.
+ */
+public class CallSiteCapture {
+
+    /**
+     * Id returned when no qualifying frame was found.
+     */
+    public static final int NO_CALL_SITE = -1;
+
+    // Without RETAIN_CLASS_REFERENCE: we only need names and line numbers
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    // Call sites are code locations and therefore naturally bounded. Class names do not identify a class
+    // across class loaders, so the table is cleared when the Vaadin service starts again (e.g. devtools
+    // restarts); the cap protects against reloading without a restart of the service.
+    private static final int MAX_CALL_SITES = 100_000;
+    private static final Map<CallSite, CallSiteEntry> callSites = new ConcurrentHashMap<>();
+    private static final Map<Integer, CallSiteEntry> callSitesById = new ConcurrentHashMap<>();
+    private static final AtomicInteger nextId = new AtomicInteger();
+
+    private CallSiteCapture() {
+        // Utility class
+    }
+
+    /**
+     * Location of the first frame outside of Vaadin, the JDK and the inspector itself.
+     */
+    public static PropertyLocation captureCaller() {
+        return resolve(WALKER.walk(frames -> frames
+                .filter(frame -> !isInternalClass(frame.getClassName()))
+                .findFirst()
+                .map(CallSiteCapture::toCallSiteId)
+                .orElse(NO_CALL_SITE)));
+    }
+
+    /**
+     * Location of the frame that called into the given class, i.e. the frame directly below the first frame
+     * executing code of {@code clazz}.
+     */
+    public static PropertyLocation captureCallerOf(Class<?> clazz) {
+        return resolve(captureCallerIdOf(clazz));
+    }
+
+    /**
+     * Like {@link #captureCallerOf(Class)} but only records the call site and returns its id. Use
+     * {@link #resolve(int)} to obtain the location later.
+     */
+    public static int captureCallerIdOf(Class<?> clazz) {
+        var className = clazz.getName();
+        return WALKER.walk(frames -> frames
+                .dropWhile(frame -> !frame.getClassName().equals(className))
+                .skip(1)
+                .findFirst()
+                .map(CallSiteCapture::toCallSiteId)
+                .orElse(NO_CALL_SITE));
+    }
+
+    /**
+     * Resolves a call site id into its (shared) location, or {@code null} for {@link #NO_CALL_SITE}.
+     */
+    public static PropertyLocation resolve(int callSiteId) {
+        if (callSiteId == NO_CALL_SITE) {
+            return null;
+        }
+        var entry = callSitesById.get(callSiteId);
+        return entry != null ? entry.getLocation() : null;
+    }
+
+    public static int getCallSiteCount() {
+        return callSites.size();
+    }
+
+    /**
+     * Forgets all call sites, for when the application classes may have been reloaded. Ids are not reused, so
+     * ids captured before resolve to {@code null} instead of to a call site of the reloaded classes.
+     */
+    public static void clear() {
+        callSites.clear();
+        callSitesById.clear();
+    }
+
+    private static boolean isInternalClass(String className) {
+        return className.startsWith("com.vaadin") ||
+                className.startsWith("java.") ||
+                className.startsWith("org.linkki.inspector");
+    }
+
+    private static int toCallSiteId(StackWalker.StackFrame frame) {
+        var callSite = new CallSite(frame.getClassName(), frame.getMethodName(), frame.getByteCodeIndex());
+        var entry = callSites.get(callSite);
+        if (entry != null) {
+            return entry.id;
+        }
+        if (callSites.size() >= MAX_CALL_SITES) {
+            return NO_CALL_SITE;
+        }
+
+        entry = callSites.computeIfAbsent(callSite, site -> {
+            var newEntry = new CallSiteEntry(nextId.getAndIncrement(), site, frame.getLineNumber());
+            callSitesById.put(newEntry.id, newEntry);
+            return newEntry;
+        });
+        return entry.id;
+    }
+
+    private record CallSite(String className, String methodName, int byteCodeIndex) {
+    }
+
+    private static final class CallSiteEntry {
+        private final int id;
+        private final CallSite callSite;
+        private final int lineNumber;
+        private volatile PropertyLocation location;
+
+        CallSiteEntry(int id, CallSite callSite, int lineNumber) {
+            this.id = id;
+            this.callSite = callSite;
+            this.lineNumber = lineNumber;
+        }
+
+        PropertyLocation getLocation() {
+            var result = location;
+            if (result == null) {
+                // Benign race: concurrent callers may create equal instances, one of them wins
+                result = new PropertyLocation(
+                        lineNumber,
+                        callSite.className(),
+                        getOutermostClassName(callSite.className()),
+                        null,
+                        callSite.methodName()
+                );
+                location = result;
+            }
+            return result;
+        }
+    }
+}
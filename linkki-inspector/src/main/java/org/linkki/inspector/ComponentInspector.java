@@ -2,29 +2,41 @@ package org.linkki.inspector;
 
 import com.vaadin.flow.component.Component;
 import org.linkki.inspector.code.ClassLocation;
+import org.linkki.inspector.code.DeferredLocation;
 import org.linkki.inspector.code.PmoMetaData;
 import org.linkki.inspector.code.PropertyLocation;
+import org.linkki.inspector.code.SourceLocation;
+import org.linkki.inspector.index.PmoLocationIndex;
 
 import java.lang.reflect.Method;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Enhanced inspector integration for Linkki framework.
  */
 public class ComponentInspector {
 
-    // Maps Component -> PMO metadata
-    private static final Map<Component, PmoMetaData> componentToPmoMap = new ConcurrentHashMap<>();
-
-    // Maps PMO instance -> metadata
-    private static final Map<Object, PmoMetaData> pmoInstanceMap = new ConcurrentHashMap<>();
+    // Component -> PMO metadata and PMO instance -> metadata are kept per session/UI, see InspectorPartition
 
     public static final String DATA_COMPONENT_ID = "data-component-id";
     public static final String DATA_PMO_CLASS = "data-pmo-class";
     public static final String DATA_PMO_PROPERTY = "data-pmo-property";
     public static final String DATA_PMO_INSTANCE_ID = "data-pmo-instance-id";
 
+    /**
+     * Whether source locations are resolved lazily when a component is inspected (default) or eagerly
+     * during registration. Can be switched off with {@code -Dlinkki.inspector.deferredLocations=false}.
+     */
+    private static volatile boolean deferredLocationResolution =
+            Boolean.parseBoolean(System.getProperty("linkki.inspector.deferredLocations", "true"));
+
+    public static void setDeferredLocationResolution(boolean deferred) {
+        deferredLocationResolution = deferred;
+    }
+
+    public static boolean isDeferredLocationResolution() {
+        return deferredLocationResolution;
+    }
+
     /**
      * Register a generic Vaadin component that isn't necessarily bound to a PMO.
      * <p>
@@ -34,15 +46,21 @@ public class ComponentInspector {
     public static void registerGenericComponent(Component component) {
         if (!LinkkiInspectorUIInjector.isEnabled()) return;
 
+        var partition = InspectorPartitions.current();
+        if (partition == null) return;
+
+        var componentClass = component.getClass();
+
         // 1. Capture Instantiation Location (Where new Button() was called)
-        // We use the component class itself to find where it was instantiated
-        var instantiationLocation = ComponentRegistry.captureInstantiationLocation(component.getClass());
+        // We use the component class itself to find where it was instantiated.
+        // Only the call site id is recorded here, the location is resolved when inspected.
+        var callSiteId = CallSiteCapture.captureCallerIdOf(componentClass);
+        DeferredLocation<PropertyLocation> instantiationLocation = resolve(DeferredLocation.deferred(() -> CallSiteCapture.resolve(callSiteId)));
 
         // 2. Capture Class Location (Only for custom classes, not standard Vaadin/JDK)
-        ClassLocation classLocation = null;
-        if (!isSystemClass(component.getClass())) {
-            var loc = findPmoClassLocation(component.getClass());
-            classLocation = (ClassLocation) SourceCodeParser.enhanceLocation(loc);
+        DeferredLocation<ClassLocation> classLocation = DeferredLocation.none();
+        if (!isSystemClass(componentClass)) {
+            classLocation = resolve(DeferredLocation.deferred(() -> resolveClassLocation(componentClass)));
         }
 
         // 3. Create Metadata
@@ -50,26 +68,31 @@ public class ComponentInspector {
         // We leave propertyName null to indicate it's not a bound property
         var metaData = new PmoMetaData(
                 component,
-                component.getClass().getName(),
+                componentClass.getName(),
                 null,
                 classLocation,
-                null,
+                DeferredLocation.none(),
                 instantiationLocation
         );
 
-        componentToPmoMap.put(component, metaData);
+        partition.componentMetaData().put(component, metaData);
 
         // 4. Set DOM attributes
         // Use a distinct prefix 'comp-' (vs 'pmo-') to differentiate, though ComponentRegistry handles both
         var componentId = "comp-" + System.identityHashCode(component);
         component.getElement().setAttribute(DATA_COMPONENT_ID, componentId);
+        LiveHierarchy.track(component, partition.hierarchy());
 
         // CHANGED: We do NOT set data-pmo-class or properties for generic components anymore.
         // This ensures they are transparent to the HierarchyScanner.
 
         // 5. Register with registry
         // If we have a class location (custom component), use it. Otherwise, use instantiation (where it was added).
-        ComponentRegistry.registerComponent(component, classLocation != null ? classLocation : instantiationLocation);
+        var finalClassLocation = classLocation;
+        ComponentRegistry.registerComponent(component, DeferredLocation.deferred(() -> {
+            var location = finalClassLocation.get();
+            return location != null ? location : instantiationLocation.get();
+        }));
     }
 
     /**
@@ -79,46 +102,69 @@ public class ComponentInspector {
     public static void registerPmoComponent(Object pmo, Component component, String propertyName) {
         if (!LinkkiInspectorUIInjector.isEnabled()) return;
 
+        var partition = InspectorPartitions.current();
+        if (partition == null) return;
+
+        // The resolvers below must only capture the class, never the PMO itself
+        var pmoClass = pmo.getClass();
+
         // Capture where the PMO was instantiated
-        var instantiationLocation = ComponentRegistry.getInstantiationLocationById(pmo);
+        var instantiationLocation = DeferredLocation.of(ComponentRegistry.getInstantiationLocationById(pmo).orElse(null));
 
         // Capture where the PMO class is defined
-        var classLocation = findPmoClassLocation(pmo.getClass());
-        classLocation = (ClassLocation) SourceCodeParser.enhanceLocation(classLocation);
+        var classLocation = resolve(DeferredLocation.deferred(() -> resolveClassLocation(pmoClass)));
 
-        // Get or create metadata for this PMO instance
-        var finalClassLocation = classLocation;
         // We only track the base PMO metadata once per instance
-        pmoInstanceMap.computeIfAbsent(pmo, p ->
-                new PmoMetaData(pmo, pmo.getClass().getName(), null, finalClassLocation, null, instantiationLocation.orElse(null))
+        partition.pmoMetaData().computeIfAbsent(pmo, p ->
+                new PmoMetaData(pmo, pmoClass.getName(), null, classLocation, DeferredLocation.none(), instantiationLocation)
         );
 
         // Find the property location with enhanced line numbers
-        var propertyLocation = findPropertyLocation(pmo, propertyName);
+        var propertyLocation = resolve(DeferredLocation.deferred(() -> findPropertyLocation(pmoClass, propertyName)));
 
         // Create component-specific metadata and register it
         var componentMetadata = new PmoMetaData(
                 pmo,
-                pmo.getClass().getName(),
+                pmoClass.getName(),
                 propertyName,
-                finalClassLocation,
+                classLocation,
                 propertyLocation,
-                instantiationLocation.orElse(null)
+                instantiationLocation
         );
 
-        componentToPmoMap.put(component, componentMetadata);
+        partition.componentMetaData().put(component, componentMetadata);
 
         // Set identifiable attributes on component so HierarchyScanner can find them in the DOM
         var componentId = generatePmoComponentId(pmo, propertyName);
+        var previousId = component.getElement().getAttribute(DATA_COMPONENT_ID);
         component.getElement().setAttribute(DATA_COMPONENT_ID, componentId);
-        component.getElement().setAttribute(DATA_PMO_CLASS, pmo.getClass().getCanonicalName());
+        component.getElement().setAttribute(DATA_PMO_CLASS, pmoClass.getCanonicalName());
         component.getElement().setAttribute(DATA_PMO_PROPERTY, propertyName != null ? propertyName : "");
         component.getElement().setAttribute(DATA_PMO_INSTANCE_ID, String.valueOf(System.identityHashCode(pmo)));
+        LiveHierarchy.track(component, partition.hierarchy());
+        if (component.isAttached()) {
+            // Bound after it was attached, e.g. a generic component that is now bound to a PMO property
+            partition.hierarchy().deltas().rebound(component, previousId, component.getUI().orElse(null));
+        }
 
         // Register with base inspector
         ComponentRegistry.registerComponent(component, propertyLocation);
     }
 
+    /**
+     * Resolves the location right away unless deferred resolution is enabled.
+     */
+    private static <T extends SourceLocation> DeferredLocation<T> resolve(DeferredLocation<T> location) {
+        if (!deferredLocationResolution) {
+            location.get();
+        }
+        return location;
+    }
+
+    private static ClassLocation resolveClassLocation(Class<?> clazz) {
+        return (ClassLocation) SourceCodeParser.enhanceLocation(findPmoClassLocation(clazz));
+    }
+
     private static ClassLocation findPmoClassLocation(Class<?> pmoClass) {
         String className = pmoClass.getName();
         String outermostClassName = getOutermostClassName(className);
@@ -135,31 +181,33 @@ public class ComponentInspector {
     }
 
     public static PropertyLocation findPropertyLocation(Object pmo, String propertyName) {
+        return findPropertyLocation(pmo.getClass(), propertyName);
+    }
+
+    public static PropertyLocation findPropertyLocation(Class<?> pmoClass, String propertyName) {
         if (propertyName == null || propertyName.isEmpty()) {
             return null;
         }
 
-        var pmoClass = pmo.getClass();
-        var getterName = "get" + capitalize(propertyName);
-        try {
-            var getterMethod = pmoClass.getDeclaredMethod(getterName);
-            var loc = extractMethodLocation(getterMethod, propertyName);
-            return (PropertyLocation) SourceCodeParser.enhanceLocation(loc);
-        } catch (NoSuchMethodException e) {
-            try {
-                var isMethod = pmoClass.getDeclaredMethod("is" + capitalize(propertyName));
-                var loc = extractMethodLocation(isMethod, propertyName);
-                return (PropertyLocation) SourceCodeParser.enhanceLocation(loc);
-            } catch (NoSuchMethodException ex) {
-                try {
-                    var modelBindingMethod = pmoClass.getDeclaredMethod(propertyName);
-                    var loc = extractMethodLocation(modelBindingMethod, propertyName);
-                    return (PropertyLocation) SourceCodeParser.enhanceLocation(loc);
-                } catch (NoSuchMethodException exc) {
-                    return null;
-                }
-            }
+        // Compile-time index for classes without sources, it is not updated when classes are recompiled
+        var indexed = SourceCodeParser.hasSourceFile(pmoClass.getName())
+                ? null
+                : PmoLocationIndex.getInstance().findProperty(pmoClass.getName(), propertyName);
+        if (indexed != null && indexed.lineNumber() > 0) {
+            return new PropertyLocation(
+                    indexed.lineNumber(),
+                    pmoClass.getName(),
+                    getOutermostClassName(pmoClass.getName()),
+                    propertyName,
+                    indexed.methodName()
+            );
+        }
+
+        var method = PropertyMethodTable.findMethod(pmoClass, propertyName);
+        if (method == null) {
+            return null;
         }
+        return (PropertyLocation) SourceCodeParser.enhanceLocation(extractMethodLocation(method, propertyName));
     }
 
     private static PropertyLocation extractMethodLocation(Method method, String propertyName) {
@@ -177,17 +225,12 @@ public class ComponentInspector {
         return "pmo-" + pmo.getClass().getSimpleName() + "-" + propPart + "-" + System.identityHashCode(pmo);
     }
 
-    private static String capitalize(String str) {
-        if (str == null || str.isEmpty()) return str;
-        return str.substring(0, 1).toUpperCase() + str.substring(1);
-    }
-
     public static PmoMetaData getPmoMetaData(Component component) {
-        return componentToPmoMap.get(component);
+        return InspectorPartitions.lookup(p -> p.componentMetaData().get(component)).orElse(null);
     }
 
     public static PmoMetaData getPmoInstanceMetaData(Object pmo) {
-        return pmoInstanceMap.get(pmo);
+        return InspectorPartitions.lookup(p -> p.pmoMetaData().get(pmo)).orElse(null);
     }
 
     /**
@@ -1,93 +1,91 @@
 package org.linkki.inspector;
 
 import com.vaadin.flow.component.Component;
-import org.linkki.inspector.code.PropertyLocation;
+import org.linkki.inspector.code.DeferredLocation;
 import org.linkki.inspector.code.SourceLocation;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
 
 import static org.linkki.inspector.ComponentInspector.DATA_COMPONENT_ID;
-import static org.linkki.inspector.ComponentInspector.getOutermostClassName;
 
 public class ComponentRegistry {
-    private static final Map<Object, SourceLocation> objectInstanceLocationRegistry = new ConcurrentHashMap<>();
-    private static final Map<String, ComponentSourceLocation> componentRegistry = new ConcurrentHashMap<>();
+
+    // The registries themselves live in the InspectorPartition of the current session/UI
 
     private ComponentRegistry() {
         // Utility class
     }
 
     public static void registerComponent(Component component, SourceLocation location) {
-        componentRegistry.put(component.getElement().getAttribute(DATA_COMPONENT_ID), new ComponentSourceLocation(component, location));
+        registerComponent(component, DeferredLocation.of(location));
+    }
+
+    public static void registerComponent(Component component, DeferredLocation<? extends SourceLocation> location) {
+        var partition = InspectorPartitions.current();
+        if (partition == null) return;
+
+        partition.componentsById().put(component.getElement().getAttribute(DATA_COMPONENT_ID), component);
+        if (location != null) {
+            partition.componentLocations().put(component, location);
+        }
     }
 
     public static void registerInstantiationLocation(Object obj, SourceLocation location) {
-        objectInstanceLocationRegistry.put(obj, location);
+        var partition = InspectorPartitions.current();
+        if (partition == null || location == null) return;
+
+        partition.instantiationLocations().put(obj, location);
     }
 
+    /**
+     * Location of the first caller outside of Vaadin, the JDK and the inspector.
+     */
     public static SourceLocation captureLocation() {
-        var stack = Thread.currentThread().getStackTrace();
-
-        for (int i = 2; i < stack.length; i++) {
-            var element = stack[i];
-            var className = element.getClassName();
-
-            if (!className.startsWith("com.vaadin") &&
-                    !className.startsWith("java.") &&
-                    !className.startsWith("org.linkki.inspector")) {
-
-                return new PropertyLocation(
-                        element.getLineNumber(),
-                        element.getClassName(),
-                        getOutermostClassName(element.getClassName()),
-                        null,
-                        element.getMethodName()
-                );
-            }
-        }
-        return null;
+        return CallSiteCapture.captureCaller();
     }
 
+    /**
+     * Location from which the given class was called, typically where it was instantiated.
+     */
     public static SourceLocation captureInstantiationLocation(Class<?> clazz) {
-        var stack = Thread.currentThread().getStackTrace();
-        for (int i = 0; i < stack.length; i++) {
-            var element = stack[i];
-            var className = element.getClassName();
-            if (!className.equals(clazz.getName())) {
-                continue;
-            } else {
-                element = stack[++i];
-            }
-
-            return new PropertyLocation(
-                    element.getLineNumber(),
-                    element.getClassName(),
-                    getOutermostClassName(element.getClassName()),
-                    null,
-                    element.getMethodName()
-            );
-        }
-        return null;
+        return CallSiteCapture.captureCallerOf(clazz);
     }
 
     public static Optional<Component> getComponentById(String componentId) {
-        if (componentRegistry.containsKey(componentId)) {
-            return Optional.of(componentRegistry.get(componentId).component);
-        } else {
-            return Optional.empty();
-        }
+        return InspectorPartitions.lookup(p -> p.componentsById().get(componentId));
     }
 
-    public static Optional<SourceLocation> getInstantiationLocationById(Object object) {
-        if (objectInstanceLocationRegistry.containsKey(object)) {
-            return Optional.of(objectInstanceLocationRegistry.get(object));
-        } else {
-            return Optional.empty();
-        }
+    /**
+     * Resolves all given ids in one pass over the partitions of the current session. Ids that are not
+     * registered are missing from the result.
+     */
+    public static Map<String, Component> getComponentsById(Collection<String> componentIds) {
+        var result = new HashMap<String, Component>();
+        var pending = new HashSet<>(componentIds);
+        InspectorPartitions.lookup(p -> {
+            for (var iterator = pending.iterator(); iterator.hasNext(); ) {
+                var componentId = iterator.next();
+                var component = p.componentsById().get(componentId);
+                if (component != null) {
+                    result.put(componentId, component);
+                    iterator.remove();
+                }
+            }
+            // Stop at the first partition that resolves the remaining ids
+            return pending.isEmpty() ? Boolean.TRUE : null;
+        });
+        return result;
+    }
+
+    public static Optional<SourceLocation> getComponentLocation(Component component) {
+        return InspectorPartitions.lookup(p -> p.componentLocations().get(component)).map(DeferredLocation::get);
     }
 
-    record ComponentSourceLocation(Component component, SourceLocation location) {
+    public static Optional<SourceLocation> getInstantiationLocationById(Object object) {
+        return InspectorPartitions.lookup(p -> p.instantiationLocations().get(object));
     }
 }
\ No newline at end of file
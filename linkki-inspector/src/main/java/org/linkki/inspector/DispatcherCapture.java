@@ -0,0 +1,124 @@
+package org.linkki.inspector;
+
+import org.linkki.core.binding.dispatcher.PropertyDispatcher;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which {@link PropertyDispatcher#pull} calls are analyzed by the {@link DispatcherChainInterceptor}.
+ * <p>
+ * Analyzing a pull re-executes the dispatcher chain once per decorator, so it is only done for the pulls
+ * selected by the current {@link Mode}. The mode is read from {@code -Dlinkki.inspector.captureMode} (default
+ * {@code ALL}) and can be switched at runtime via {@code POST /inspector/capture}.
+ */
+public final class DispatcherCapture {
+
+    public enum Mode {
+        /** No pull is analyzed. */
+        OFF,
+        /** Every pull is analyzed. */
+        ALL,
+        /** One in {@link #getSampleRate()} pulls is analyzed. */
+        SAMPLED,
+        /** Only pulls of PMO properties that were selected in the inspector overlay are analyzed. */
+        TARGETED
+    }
+
+    private static volatile Mode mode = parseMode(System.getProperty("linkki.inspector.captureMode"), Mode.ALL);
+    private static volatile int sampleRate = Math.max(1, Integer.getInteger("linkki.inspector.sampleRate", 100));
+
+    // PMO instance -> selected properties
+    private static final WeakIdentityRegistry<Object, Set<String>> targets = new WeakIdentityRegistry<>("captureTargets");
+    // Avoids the registry lookup on every pull while nothing is selected
+    private static volatile boolean hasTargets;
+
+    private DispatcherCapture() {
+        // Utility class
+    }
+
+    /**
+     * Fast-path check before any other work: {@code false} if no pull is analyzed at all.
+     */
+    public static boolean isEnabled() {
+        return mode != Mode.OFF;
+    }
+
+    /**
+     * Whether the pull of the given dispatcher should be analyzed.
+     */
+    public static boolean shouldCapture(PropertyDispatcher head) {
+        return switch (mode) {
+            case OFF -> false;
+            case ALL -> true;
+            case SAMPLED -> ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+            case TARGETED -> isTarget(head.getBoundObject(), head.getProperty());
+        };
+    }
+
+    /**
+     * Marks a PMO property as selected, so that its pulls are analyzed in {@link Mode#TARGETED} mode.
+     */
+    public static void target(Object pmo, String property) {
+        if (pmo == null || property == null) {
+            return;
+        }
+        targets.computeIfAbsent(pmo, p -> ConcurrentHashMap.newKeySet()).add(property);
+        hasTargets = true;
+    }
+
+    public static void clearTargets() {
+        hasTargets = false;
+        targets.clear();
+    }
+
+    private static boolean isTarget(Object pmo, String property) {
+        if (!hasTargets || pmo == null) {
+            return false;
+        }
+        var properties = targets.get(pmo);
+        return properties != null && properties.contains(property);
+    }
+
+    public static Mode getMode() {
+        return mode;
+    }
+
+    public static void setMode(Mode captureMode) {
+        mode = captureMode;
+    }
+
+    public static int getSampleRate() {
+        return sampleRate;
+    }
+
+    public static void setSampleRate(int rate) {
+        if (rate < 1) {
+            throw new IllegalArgumentException("Sample rate must be at least 1: " + rate);
+        }
+        sampleRate = rate;
+    }
+
+    public static Map<String, Object> getSettings() {
+        return Map.of(
+                "mode", mode.name(),
+                "sampleRate", sampleRate,
+                "targets", targets.size()
+        );
+    }
+
+    static Mode parseMode(String value, Mode defaultMode) {
+        if (value == null || value.isBlank()) {
+            return defaultMode;
+        }
+        try {
+            return Mode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Inspector: Unknown capture mode '" + value + "', using " + defaultMode);
+            return defaultMode;
+        }
+    }
+}
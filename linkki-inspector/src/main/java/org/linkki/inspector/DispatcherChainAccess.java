@@ -0,0 +1,60 @@
+package org.linkki.inspector;
+
+import org.linkki.core.binding.dispatcher.AbstractPropertyDispatcherDecorator;
+import org.linkki.core.binding.dispatcher.PropertyDispatcher;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Access to the links of a linkki dispatcher chain.
+ * <p>
+ * The private {@code wrappedDispatcher} field of {@link AbstractPropertyDispatcherDecorator} is resolved once
+ * into a {@link VarHandle}; the chain is only ever read. If the field cannot be accessed, every decorator is
+ * treated as the end of its chain.
+ */
+public final class DispatcherChainAccess {
+
+    private static final String WRAPPED_FIELD = "wrappedDispatcher";
+
+    private static final VarHandle WRAPPED;
+
+    static {
+        VarHandle wrapped = null;
+        try {
+            var lookup = MethodHandles.privateLookupIn(AbstractPropertyDispatcherDecorator.class, MethodHandles.lookup());
+            wrapped = lookup.findVarHandle(AbstractPropertyDispatcherDecorator.class, WRAPPED_FIELD, PropertyDispatcher.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            System.err.println("Inspector: Cannot access the dispatcher chain - " + e);
+        }
+        WRAPPED = wrapped;
+    }
+
+    private DispatcherChainAccess() {
+        // Utility class
+    }
+
+    /**
+     * The next link after the given dispatcher, or {@code null} if it is the last one.
+     */
+    public static PropertyDispatcher getWrapped(PropertyDispatcher dispatcher) {
+        if (WRAPPED == null || !(dispatcher instanceof AbstractPropertyDispatcherDecorator)) {
+            return null;
+        }
+        return (PropertyDispatcher) WRAPPED.get((AbstractPropertyDispatcherDecorator) dispatcher);
+    }
+
+    /**
+     * All links of the chain, starting with the given head. Only reads the chain.
+     */
+    public static List<PropertyDispatcher> walk(PropertyDispatcher head) {
+        var chain = new ArrayList<PropertyDispatcher>();
+        for (var current = head; current != null; current = getWrapped(current)) {
+            chain.add(current);
+        }
+        return Collections.unmodifiableList(chain);
+    }
+}
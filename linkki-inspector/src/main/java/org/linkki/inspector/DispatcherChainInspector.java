@@ -1,49 +1,49 @@
 package org.linkki.inspector;
 
 import org.linkki.core.binding.descriptor.aspect.Aspect;
-import org.linkki.core.binding.dispatcher.AbstractPropertyDispatcherDecorator;
 import org.linkki.core.binding.dispatcher.PropertyDispatcher;
 import org.linkki.core.binding.validation.message.MessageList;
 
-import java.lang.reflect.Field;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class DispatcherChainInspector {
 
-    // Key: System.identityHashCode(pmo) + "#" + property
-    // Value: Map<AspectName, InspectionRecord>
-    private static final Map<String, Map<String, InspectionRecord>> history = new ConcurrentHashMap<>();
     private static final int MAX_VALUE_LENGTH = 200;
 
     public static void record(Object pmo, String property, Aspect<?> aspect, Object result, Map<String, Object> breakdown) {
-        String key = getKey(pmo, property);
-
         // Convert breakdown values to strings to be safe for serialization/display
-        Map<String, String> safeBreakdown = new LinkedHashMap<>();
-        breakdown.forEach((k, v) -> safeBreakdown.put(k, truncate(v)));
-
-        String aspectName = aspect.getName();
-        if (aspectName == null || aspectName.isEmpty()) {
-            aspectName = "value";
+        var dispatchers = new String[breakdown.size()];
+        var values = new String[breakdown.size()];
+        var i = 0;
+        for (var entry : breakdown.entrySet()) {
+            dispatchers[i] = entry.getKey();
+            values[i++] = truncate(entry.getValue());
         }
 
-        history.computeIfAbsent(key, k -> new ConcurrentHashMap<>())
-                .put(aspectName, new InspectionRecord(aspectName, truncate(result), safeBreakdown));
+        // The history belongs to the current UI and is dropped with it
+        var partition = InspectorPartitions.current();
+        if (partition != null) {
+            partition.dispatcherHistory().add(pmo, property,
+                    new InspectionRecord(getAspectName(aspect), truncate(result), dispatchers, values));
+        }
     }
 
+    /**
+     * The recorded analyses of the given property, oldest first.
+     */
     public static List<InspectionRecord> getHistory(Object pmo, String property) {
-        Map<String, InspectionRecord> records = history.get(getKey(pmo, property));
-        if (records == null) {
-            return Collections.emptyList();
-        }
-        List<InspectionRecord> list = new ArrayList<>(records.values());
-        list.sort(Comparator.comparingLong(r -> r.timestamp));
-        return list;
+        return InspectorPartitions.lookup(p -> {
+            var records = p.dispatcherHistory().get(pmo, property);
+            return records.isEmpty() ? null : records;
+        }).orElse(List.of());
     }
 
-    private static String getKey(Object pmo, String property) {
-        return System.identityHashCode(pmo) + "#" + property;
+    static String getAspectName(Aspect<?> aspect) {
+        String aspectName = aspect.getName();
+        if (aspectName == null || aspectName.isEmpty()) {
+            aspectName = "value";
+        }
+        return aspectName;
     }
 
     private static String truncate(Object value) {
@@ -57,82 +57,88 @@ public class DispatcherChainInspector {
     public static class InspectionRecord {
         public final String aspectName;
         public final String result;
-        public final Map<String, String> breakdown;
         public final long timestamp = System.currentTimeMillis();
 
-        public InspectionRecord(String aspectName, String result, Map<String, String> breakdown) {
+        // Parallel arrays: dispatcher class name -> isolated result
+        private final String[] dispatchers;
+        private final String[] values;
+
+        public InspectionRecord(String aspectName, String result, String[] dispatchers, String[] values) {
             this.aspectName = aspectName;
             this.result = result;
-            this.breakdown = breakdown;
+            this.dispatchers = dispatchers;
+            this.values = values;
+        }
+
+        public Map<String, String> getBreakdown() {
+            Map<String, String> breakdown = new LinkedHashMap<>();
+            for (var i = 0; i < dispatchers.length; i++) {
+                breakdown.put(dispatchers[i], values[i]);
+            }
+            return breakdown;
+        }
+
+        boolean hasSameValues(InspectionRecord other) {
+            return aspectName.equals(other.aspectName)
+                    && Objects.equals(result, other.result)
+                    && Arrays.equals(dispatchers, other.dispatchers)
+                    && Arrays.equals(values, other.values);
         }
     }
 
+    /**
+     * Result shown for a link that cannot be probed on its own, see {@link DispatcherShadowCopies}.
+     */
+    public static final String NOT_ISOLABLE = "[not isolable]";
+
     /**
      * Traverses the chain, isolates each dispatcher, and records what it would return
-     * if it had no fallback.
+     * if it had no fallback. Links that cannot be isolated are listed with {@link #NOT_ISOLABLE}.
+     * <p>
+     * Each decorator is probed through a shadow copy that wraps {@link #DUMMY_DISPATCHER}, so the live chain
+     * is never modified and concurrent pulls always see the real chain. The time and allocation of each
+     * isolated pull are added to the {@link DispatcherLatencyStats}.
      */
     public static Map<String, Object> inspectChain(PropertyDispatcher head, Aspect<?> aspect) {
         Map<String, Object> debugResults = new LinkedHashMap<>();
 
-        PropertyDispatcher current = head;
+        Object boundObject = head.getBoundObject();
+        String pmoClass = boundObject != null ? boundObject.getClass().getName() : "";
+        String property = String.valueOf(head.getProperty());
+        String aspectName = getAspectName(aspect);
 
-        while (current != null) {
+        for (PropertyDispatcher current : DispatcherChainAccess.walk(head)) {
             String name = current.getClass().getSimpleName();
 
-            // 1. Isolate: Swap the next link with TERMINAL
-            PropertyDispatcher originalWrapped = getWrapped(current);
-            if (originalWrapped != null) {
-                setWrapped(current, DUMMY_DISPATCHER);
+            // 1. Isolate: A copy of this link with TERMINAL as the next link
+            PropertyDispatcher isolated = DispatcherShadowCopies.isolate(current, DUMMY_DISPATCHER);
+            if (isolated == null) {
+                // Cannot be isolated, probing the real link would return the result of the whole rest of the chain
+                debugResults.put(name, NOT_ISOLABLE);
+                continue;
             }
 
-            // 2. Probe: Call pull() on this isolated node
+            // 2. Probe: Call pull() on the isolated node and measure its own cost
+            long allocatedBefore = DispatcherLatencyStats.currentThreadAllocatedBytes();
+            long start = System.nanoTime();
             try {
-                Object result = current.pull(aspect);
+                Object result = isolated.pull(aspect);
                 debugResults.put(name, result);
             } catch (Exception e) {
                 // in case of exceptions, we just ignore the result
                 // debugResults.put(name, "[Error: " + e.getMessage() + "]");
+            } finally {
+                long nanos = System.nanoTime() - start;
+                long allocated = allocatedBefore >= 0
+                        ? DispatcherLatencyStats.currentThreadAllocatedBytes() - allocatedBefore
+                        : -1;
+                DispatcherLatencyStats.record(pmoClass, property, aspectName, current.getClass().getName(), nanos, allocated);
             }
-
-            // 3. Restore: Put the original link back
-            if (originalWrapped != null) {
-                setWrapped(current, originalWrapped);
-            }
-
-            // Move to next
-            current = originalWrapped;
         }
 
         return debugResults;
     }
 
-    // --- Reflection Helpers ---
-
-    private static PropertyDispatcher getWrapped(PropertyDispatcher dispatcher) {
-        if (dispatcher instanceof AbstractPropertyDispatcherDecorator) {
-            try {
-                Field field = AbstractPropertyDispatcherDecorator.class.getDeclaredField("wrappedDispatcher");
-                field.setAccessible(true);
-                return (PropertyDispatcher) field.get(dispatcher);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        }
-        return null;
-    }
-
-    private static void setWrapped(PropertyDispatcher dispatcher, PropertyDispatcher newValue) {
-        if (dispatcher instanceof AbstractPropertyDispatcherDecorator) {
-            try {
-                Field field = AbstractPropertyDispatcherDecorator.class.getDeclaredField("wrappedDispatcher");
-                field.setAccessible(true);
-                field.set(dispatcher, newValue);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        }
-    }
-
     // A dispatcher that does nothing and replaces the next dispatcher in the chain for debugging purposes
     private static final PropertyDispatcher DUMMY_DISPATCHER = new PropertyDispatcher() {
         @Override
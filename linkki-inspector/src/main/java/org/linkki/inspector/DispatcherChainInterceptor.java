@@ -17,37 +17,67 @@ public class DispatcherChainInterceptor {
 
     @Around("execution(* org.linkki.core.binding.dispatcher.PropertyDispatcher.pull(..)) && args(aspect)")
     public Object debugDispatcherChain(ProceedingJoinPoint joinPoint, Aspect<?> aspect) throws Throwable {
+        if (!InspectorSwitch.isOn()) {
+            return joinPoint.proceed();
+        }
+        // Redundant pull detection and memoization only look at the outermost pull of each chain
+        var roundTrip = PullRoundTrip.current();
+        if (roundTrip == null) {
+            return analyzePull(joinPoint, aspect);
+        }
+
+        var outermost = roundTrip.enterPull();
+        try {
+            var key = outermost ? PullKey.of((PropertyDispatcher) joinPoint.getThis(), aspect) : null;
+            if (key == null) {
+                return analyzePull(joinPoint, aspect);
+            }
 
-        // 1. If we are already analyzing (recursion guard), just execute normally.
-        if (IS_ANALYZING.get()) {
+            var result = MemoizationAdvisor.isEnabled()
+                    ? MemoizationAdvisor.pull(roundTrip, key, () -> analyzePull(joinPoint, aspect))
+                    : analyzePull(joinPoint, aspect);
+            if (RedundantPullDetector.isEnabled()) {
+                RedundantPullDetector.record(roundTrip, key, result);
+            }
+            return result;
+        } finally {
+            roundTrip.exitPull();
+        }
+    }
+
+    private Object analyzePull(ProceedingJoinPoint joinPoint, Aspect<?> aspect) throws Throwable {
+        // 1. If capturing is off or we are already analyzing (recursion guard), just execute normally.
+        if (!DispatcherCapture.isEnabled() || IS_ANALYZING.get()) {
             return joinPoint.proceed();
         }
 
+        PropertyDispatcher head = (PropertyDispatcher) joinPoint.getThis();
         try {
+            // The guard also covers the nested pulls of the decorators, so sampling is decided once per chain
             IS_ANALYZING.set(true);
 
-            // 2. Execute the REAL chain first to get the actual result
-            Object actualResult = joinPoint.proceed();
+            // 2. Only debug the calls selected by the capture mode
+            if (!shouldDebug(head, aspect)) {
+                return joinPoint.proceed();
+            }
 
-            // 3. Perform the analysis
-            PropertyDispatcher head = (PropertyDispatcher) joinPoint.getThis();
+            // 3. Execute the REAL chain first to get the actual result
+            Object actualResult = joinPoint.proceed();
 
-            // Only debug if this is a "real" call we care about (optional filters can go here)
-            if (shouldDebug(head, aspect)) {
-                Map<String, Object> chainAnalysis = DispatcherChainInspector.inspectChain(head, aspect);
+            // 4. Perform the analysis
+            Map<String, Object> chainAnalysis = DispatcherChainInspector.inspectChain(head, aspect);
 
-                // Store the result for UI retrieval
-                DispatcherChainInspector.record(
-                        head.getBoundObject(),
-                        head.getProperty(),
-                        aspect,
-                        actualResult,
-                        chainAnalysis
-                );
+            // Store the result for UI retrieval
+            DispatcherChainInspector.record(
+                    head.getBoundObject(),
+                    head.getProperty(),
+                    aspect,
+                    actualResult,
+                    chainAnalysis
+            );
 
-                // Optional: Keep console logging for now
-                // printDebugReport(head, aspect, actualResult, chainAnalysis);
-            }
+            // Optional: Keep console logging for now
+            // printDebugReport(head, aspect, actualResult, chainAnalysis);
 
             return actualResult;
 
@@ -57,9 +87,8 @@ public class DispatcherChainInterceptor {
     }
 
     private boolean shouldDebug(PropertyDispatcher head, Aspect aspect) {
-        // Optional: Filter to reduce noise.
-        // E.g., only debug dispatchers for specific properties or specific aspects
-        return true;
+        // Off, every call, 1-in-N samples or only the properties selected in the overlay
+        return DispatcherCapture.shouldCapture(head);
     }
 
     private void printDebugReport(PropertyDispatcher head, Aspect aspect, Object finalResult, Map<String, Object> analysis) {
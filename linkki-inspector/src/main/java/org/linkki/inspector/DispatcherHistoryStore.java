@@ -0,0 +1,265 @@
+package org.linkki.inspector;
+
+import org.linkki.inspector.DispatcherChainInspector.InspectionRecord;
+
+import java.lang.ref.Cleaner;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded history of dispatcher chain analyses.
+ * <p>
+ * Keeps the last {@code depth} records per aspect of every PMO property in a fixed-size ring buffer. PMOs are
+ * held weakly and compared by identity, so no keys are built per pull and histories disappear with their
+ * PMO. Each {@link InspectorPartition} has its own store, so the history is released with its UI or session.
+ * The number of property histories is capped by a {@link Budget} shared by all stores (see
+ * {@link Budget#GLOBAL}); when the cap is exceeded, the least recently recorded properties of all stores are
+ * evicted in one batch, so the memory does not grow with the number of open UIs.
+ */
+public class DispatcherHistoryStore {
+
+    public static final int DEFAULT_DEPTH = Integer.getInteger("linkki.inspector.historyDepth", 5);
+    public static final int DEFAULT_MAX_PROPERTIES = Integer.getInteger("linkki.inspector.historyMaxProperties", 10_000);
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    // Evict down to this fraction of the cap, so that eviction does not run on every new property
+    private static final double EVICTION_TARGET = 0.9;
+
+    private final int depth;
+    private final Budget budget;
+
+    private final WeakIdentityRegistry<Object, PmoHistory> histories = new WeakIdentityRegistry<>("dispatcherHistory");
+    // Properties of this store, each is also counted in the budget
+    private final AtomicInteger propertyCount = new AtomicInteger();
+    private final LongAdder evictions = new LongAdder();
+    private final long createdAt = System.nanoTime();
+
+    /**
+     * A store with its own budget of {@code maxProperties}.
+     */
+    public DispatcherHistoryStore(int depth, int maxProperties) {
+        this(depth, new Budget(maxProperties));
+    }
+
+    public DispatcherHistoryStore(int depth, Budget budget) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("History depth must be positive");
+        }
+        this.depth = depth;
+        this.budget = budget;
+        budget.register(this);
+    }
+
+    public void add(Object pmo, String property, InspectionRecord record) {
+        if (pmo == null || property == null) {
+            return;
+        }
+        var pmoHistory = histories.computeIfAbsent(pmo, this::newPmoHistory);
+        var propertyHistory = pmoHistory.properties.get(property);
+        if (propertyHistory == null) {
+            var created = new PropertyHistory();
+            propertyHistory = pmoHistory.properties.putIfAbsent(property, created);
+            if (propertyHistory == null) {
+                propertyHistory = created;
+                propertyCount.incrementAndGet();
+                budget.added();
+            }
+        }
+        propertyHistory.add(record, depth);
+    }
+
+    /**
+     * All records of the given property, oldest first.
+     */
+    public List<InspectionRecord> get(Object pmo, String property) {
+        if (pmo == null || property == null) {
+            return List.of();
+        }
+        var pmoHistory = histories.get(pmo);
+        var propertyHistory = pmoHistory != null ? pmoHistory.properties.get(property) : null;
+        if (propertyHistory == null) {
+            return List.of();
+        }
+        var records = propertyHistory.snapshot();
+        records.sort(Comparator.comparingLong(r -> r.timestamp));
+        return records;
+    }
+
+    public int getPropertyCount() {
+        return propertyCount.get();
+    }
+
+    public void clear() {
+        histories.forEach((pmo, pmoHistory) -> pmoHistory.release());
+        histories.clear();
+    }
+
+    public RegistryStatistics getStatistics() {
+        return RegistryStatistics.of("dispatcherHistory", propertyCount.get(), evictions.sum(), createdAt);
+    }
+
+    private PmoHistory newPmoHistory(Object pmo) {
+        var pmoHistory = new PmoHistory(this);
+        // Release the property count once the PMO is collected; the action must not reference the PMO
+        CLEANER.register(pmo, pmoHistory::release);
+        return pmoHistory;
+    }
+
+    /**
+     * The maximum number of property histories of a group of stores.
+     */
+    public static final class Budget {
+
+        /**
+         * The budget of the stores of all UI partitions, {@code -Dlinkki.inspector.historyMaxProperties}.
+         */
+        public static final Budget GLOBAL = new Budget(DEFAULT_MAX_PROPERTIES);
+
+        private final int maxProperties;
+        private final AtomicInteger propertyCount = new AtomicInteger();
+        private final AtomicBoolean evicting = new AtomicBoolean();
+        // Stores are held weakly, they are released with their partition
+        private final Set<DispatcherHistoryStore> stores = Collections.newSetFromMap(new WeakHashMap<>());
+
+        public Budget(int maxProperties) {
+            if (maxProperties < 1) {
+                throw new IllegalArgumentException("History capacity must be positive");
+            }
+            this.maxProperties = maxProperties;
+        }
+
+        public int getPropertyCount() {
+            return propertyCount.get();
+        }
+
+        private void register(DispatcherHistoryStore store) {
+            synchronized (stores) {
+                stores.add(store);
+            }
+        }
+
+        private void added() {
+            if (propertyCount.incrementAndGet() > maxProperties) {
+                evictColdest();
+            }
+        }
+
+        private void removed() {
+            propertyCount.decrementAndGet();
+        }
+
+        private void evictColdest() {
+            if (!evicting.compareAndSet(false, true)) {
+                // Another thread is already evicting
+                return;
+            }
+            try {
+                List<DispatcherHistoryStore> currentStores;
+                synchronized (stores) {
+                    currentStores = new ArrayList<>(stores);
+                }
+                var candidates = new ArrayList<EvictionCandidate>();
+                for (var store : currentStores) {
+                    store.histories.forEach((pmo, pmoHistory) -> pmoHistory.properties.forEach((property, propertyHistory) ->
+                            candidates.add(new EvictionCandidate(pmoHistory, property, propertyHistory.lastRecorded))));
+                }
+                candidates.sort(Comparator.comparingLong(EvictionCandidate::lastRecorded));
+
+                var target = (int) (maxProperties * EVICTION_TARGET);
+                for (var candidate : candidates) {
+                    if (propertyCount.get() <= target) {
+                        break;
+                    }
+                    if (candidate.pmoHistory().remove(candidate.property())) {
+                        candidate.pmoHistory().store.evictions.increment();
+                    }
+                }
+            } finally {
+                evicting.set(false);
+            }
+        }
+    }
+
+    private record EvictionCandidate(PmoHistory pmoHistory, String property, long lastRecorded) {
+    }
+
+    private static final class PmoHistory {
+        private final Map<String, PropertyHistory> properties = new ConcurrentHashMap<>();
+        // Only used for the counters; the cleaner action holds this history, so it must not keep the PMO
+        private final DispatcherHistoryStore store;
+
+        private PmoHistory(DispatcherHistoryStore store) {
+            this.store = store;
+        }
+
+        private boolean remove(String property) {
+            if (properties.remove(property) != null) {
+                store.propertyCount.decrementAndGet();
+                store.budget.removed();
+                return true;
+            }
+            return false;
+        }
+
+        private void release() {
+            properties.keySet().forEach(this::remove);
+        }
+    }
+
+    /**
+     * Ring buffers of the last records per aspect of one PMO property.
+     */
+    private static final class PropertyHistory {
+        private final Map<String, RecordRing> aspects = new ConcurrentHashMap<>(4);
+        private volatile long lastRecorded;
+
+        private void add(InspectionRecord record, int depth) {
+            lastRecorded = System.nanoTime();
+            aspects.computeIfAbsent(record.aspectName, a -> new RecordRing(depth)).add(record);
+        }
+
+        private List<InspectionRecord> snapshot() {
+            var records = new ArrayList<InspectionRecord>();
+            aspects.values().forEach(ring -> ring.copyTo(records));
+            return records;
+        }
+    }
+
+    private static final class RecordRing {
+        private final InspectionRecord[] records;
+        private int next;
+        private int size;
+
+        private RecordRing(int depth) {
+            this.records = new InspectionRecord[depth];
+        }
+
+        private synchronized void add(InspectionRecord record) {
+            var newest = size > 0 ? records[(next + records.length - 1) % records.length] : null;
+            if (newest != null && newest.hasSameValues(record)) {
+                // Nothing changed since the last pull, only refresh the newest record
+                records[(next + records.length - 1) % records.length] = record;
+                return;
+            }
+            records[next] = record;
+            next = (next + 1) % records.length;
+            size = Math.min(size + 1, records.length);
+        }
+
+        private synchronized void copyTo(List<InspectionRecord> target) {
+            for (var i = size; i > 0; i--) {
+                target.add(records[(next + records.length - i) % records.length]);
+            }
+        }
+    }
+}
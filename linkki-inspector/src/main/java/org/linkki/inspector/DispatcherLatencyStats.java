@@ -0,0 +1,201 @@
+package org.linkki.inspector;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running latency and allocation statistics of the isolated links of dispatcher chains, per PMO class,
+ * property, aspect and dispatcher class.
+ * <p>
+ * Filled by {@link DispatcherChainInspector#inspectChain} for every analyzed pull, so it shows which link of
+ * a chain dominates the pull cost of a property. Statistics are indexed by PMO class and property, so the
+ * breakdown of one property does not scan the others. At most {@value #MAX_KEYS} links are measured; when
+ * there are more, the properties that were least recently pulled are evicted in one batch, so new
+ * properties are always measured. Reset via {@code DELETE /inspector/latency}.
+ */
+public final class DispatcherLatencyStats {
+
+    private static final int MAX_KEYS = 20_000;
+
+    // Evict down to this fraction of the cap, so that eviction does not run on every new link
+    private static final double EVICTION_TARGET = 0.9;
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = allocationCounter();
+
+    private static final Map<PropertyKey, PropertyStats> properties = new ConcurrentHashMap<>();
+    // Links over all properties
+    private static final AtomicInteger keyCount = new AtomicInteger();
+    private static final AtomicBoolean evicting = new AtomicBoolean();
+    private static final LongAdder evictions = new LongAdder();
+    private static final long createdAt = System.nanoTime();
+
+    private DispatcherLatencyStats() {
+        // Utility class
+    }
+
+    /**
+     * Bytes allocated by the current thread so far, or -1 if the JVM does not count them.
+     */
+    public static long currentThreadAllocatedBytes() {
+        return THREAD_MX_BEAN != null ? THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    public static void record(String pmoClass, String property, String aspect, String dispatcher, long nanos,
+            long allocatedBytes) {
+        var propertyKey = new PropertyKey(pmoClass, property);
+        var propertyStats = properties.computeIfAbsent(propertyKey, k -> new PropertyStats());
+        propertyStats.lastRecorded = System.nanoTime();
+        var linkKey = new LinkKey(aspect, dispatcher);
+        var histogram = propertyStats.links.get(linkKey);
+        if (histogram == null) {
+            var created = new LatencyHistogram();
+            histogram = propertyStats.links.putIfAbsent(linkKey, created);
+            if (histogram == null) {
+                histogram = created;
+                keyCount.incrementAndGet();
+                if (properties.get(propertyKey) != propertyStats) {
+                    // Evicted meanwhile, its links were already discounted
+                    keyCount.decrementAndGet();
+                } else if (keyCount.get() > MAX_KEYS) {
+                    evictColdest();
+                }
+            }
+        }
+        histogram.record(nanos, allocatedBytes);
+    }
+
+    /**
+     * Cost of each link of the chains of one PMO property, per aspect in chain order.
+     */
+    public static List<Map<String, Object>> getBreakdown(String pmoClass, String property) {
+        var propertyStats = properties.get(new PropertyKey(pmoClass, property));
+        if (propertyStats == null) {
+            return List.of();
+        }
+        var links = Map.copyOf(propertyStats.links);
+        var aspectTotals = new HashMap<String, Double>();
+        links.forEach((link, histogram) -> aspectTotals.merge(link.aspect(), histogram.getMeanNanos(), Double::sum));
+
+        var rows = new ArrayList<Map<String, Object>>(links.size());
+        links.forEach((link, histogram) -> {
+            var row = toMap(pmoClass, property, link, histogram);
+            var aspectTotal = aspectTotals.get(link.aspect());
+            row.put("share", aspectTotal > 0 ? histogram.getMeanNanos() / aspectTotal : 0);
+            rows.add(row);
+        });
+        rows.sort(Comparator.comparing((Map<String, Object> row) -> (String) row.get("aspect"))
+                .thenComparing(row -> -(double) row.get("share")));
+        return rows;
+    }
+
+    /**
+     * The most expensive links overall by total time, optionally restricted to one PMO class.
+     */
+    public static List<Map<String, Object>> getTop(String pmoClass, int limit) {
+        return properties.entrySet().stream()
+                .filter(e -> pmoClass == null || e.getKey().pmoClass().equals(pmoClass))
+                .flatMap(e -> e.getValue().links.entrySet().stream()
+                        .map(link -> new LinkStats(e.getKey(), link.getKey(), link.getValue())))
+                .sorted(Comparator.comparingLong(link -> -link.histogram().getTotalNanos()))
+                .limit(limit)
+                .map(link -> toMap(link.property().pmoClass(), link.property().property(), link.link(),
+                        link.histogram()))
+                .toList();
+    }
+
+    public static void clear() {
+        properties.keySet().forEach(DispatcherLatencyStats::remove);
+    }
+
+    /**
+     * Number of measured links and how many were evicted to stay below the cap.
+     */
+    public static RegistryStatistics getStatistics() {
+        return RegistryStatistics.of("dispatcherLatency", keyCount.get(), evictions.sum(), createdAt);
+    }
+
+    private static boolean remove(PropertyKey key) {
+        var removed = properties.remove(key);
+        if (removed != null) {
+            keyCount.addAndGet(-removed.links.size());
+            return true;
+        }
+        return false;
+    }
+
+    private static void evictColdest() {
+        if (!evicting.compareAndSet(false, true)) {
+            // Another thread is already evicting
+            return;
+        }
+        try {
+            var candidates = new ArrayList<Map.Entry<PropertyKey, Long>>(properties.size());
+            properties.forEach((key, propertyStats) -> candidates.add(Map.entry(key, propertyStats.lastRecorded)));
+            candidates.sort(Map.Entry.comparingByValue());
+
+            var target = (int) (MAX_KEYS * EVICTION_TARGET);
+            for (var candidate : candidates) {
+                if (keyCount.get() <= target) {
+                    break;
+                }
+                if (remove(candidate.getKey())) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static Map<String, Object> toMap(String pmoClass, String property, LinkKey link,
+            LatencyHistogram histogram) {
+        var map = new HashMap<String, Object>();
+        map.put("pmoClass", pmoClass);
+        map.put("property", property);
+        map.put("aspect", link.aspect());
+        map.put("dispatcher", link.dispatcher());
+        map.put("count", histogram.getCount());
+        map.put("meanMicros", histogram.getMeanNanos() / 1_000.0);
+        map.put("p50Micros", histogram.getPercentile(0.5) / 1_000.0);
+        map.put("p90Micros", histogram.getPercentile(0.9) / 1_000.0);
+        map.put("p99Micros", histogram.getPercentile(0.99) / 1_000.0);
+        map.put("maxMicros", histogram.getMaxNanos() / 1_000.0);
+        map.put("meanAllocatedBytes", histogram.getMeanAllocatedBytes());
+        return map;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                    && bean.isThreadAllocatedMemorySupported()) {
+                bean.setThreadAllocatedMemoryEnabled(true);
+                return bean;
+            }
+        } catch (RuntimeException | LinkageError e) {
+            System.err.println("Inspector: Thread allocation counters not available - " + e.getMessage());
+        }
+        return null;
+    }
+
+    private record PropertyKey(String pmoClass, String property) {
+    }
+
+    private record LinkKey(String aspect, String dispatcher) {
+    }
+
+    private record LinkStats(PropertyKey property, LinkKey link, LatencyHistogram histogram) {
+    }
+
+    private static final class PropertyStats {
+        private final Map<LinkKey, LatencyHistogram> links = new ConcurrentHashMap<>();
+        private volatile long lastRecorded;
+    }
+}
@@ -0,0 +1,152 @@
+package org.linkki.inspector;
+
+import org.linkki.core.binding.dispatcher.AbstractPropertyDispatcherDecorator;
+import org.linkki.core.binding.dispatcher.PropertyDispatcher;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Creates isolated copies of dispatcher decorators for probing.
+ * <p>
+ * A shadow copy is a new instance of the decorator's class, created through a public constructor that takes
+ * the wrapped dispatcher as its first parameter, with the given terminal dispatcher in place of the rest of
+ * the chain. The other constructor arguments are taken from the fields of the live decorator: each parameter
+ * needs exactly one field of exactly its type, since a field of a subtype may hold something else (e.g. for
+ * an {@code Object} parameter). Decorators without such a constructor are not copied. The live chain is never
+ * modified and each probe uses its own copy, so probing is safe while other threads pull through the same
+ * chain.
+ */
+public final class DispatcherShadowCopies {
+
+    private static final ShadowFactory UNSUPPORTED = new ShadowFactory(null, List.of());
+
+    private static final ClassValue<ShadowFactory> FACTORIES = new ClassValue<>() {
+        @Override
+        protected ShadowFactory computeValue(Class<?> type) {
+            return ShadowFactory.create(type);
+        }
+    };
+
+    private DispatcherShadowCopies() {
+        // Utility class
+    }
+
+    /**
+     * The dispatcher to probe in place of the given link: a shadow copy wrapping {@code terminal} for
+     * decorators, the link itself if it wraps nothing, or {@code null} if the decorator cannot be copied.
+     */
+    public static PropertyDispatcher isolate(PropertyDispatcher dispatcher, PropertyDispatcher terminal) {
+        if (!(dispatcher instanceof AbstractPropertyDispatcherDecorator)
+                || DispatcherChainAccess.getWrapped(dispatcher) == null) {
+            return dispatcher;
+        }
+        var factory = FACTORIES.get(dispatcher.getClass());
+        return factory != UNSUPPORTED ? factory.copy(dispatcher, terminal) : null;
+    }
+
+    private static final class ShadowFactory {
+
+        private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+        private final MethodHandle constructor;
+        // Getters of the live decorator's fields for the constructor arguments after the wrapped dispatcher
+        private final List<MethodHandle> arguments;
+
+        private ShadowFactory(MethodHandle constructor, List<MethodHandle> arguments) {
+            this.constructor = constructor;
+            this.arguments = arguments;
+        }
+
+        private static ShadowFactory create(Class<?> type) {
+            if (!Modifier.isPublic(type.getModifiers()) || Modifier.isAbstract(type.getModifiers())) {
+                return UNSUPPORTED;
+            }
+            var fields = instanceFields(type);
+            // Prefer the constructor that carries over the most state
+            var constructors = Arrays.stream(type.getConstructors())
+                    .filter(c -> c.getParameterCount() > 0 && c.getParameterTypes()[0] == PropertyDispatcher.class)
+                    .sorted(Comparator.comparingInt(Constructor<?>::getParameterCount).reversed())
+                    .toList();
+            for (var constructor : constructors) {
+                try {
+                    var arguments = resolveArguments(constructor, fields);
+                    if (arguments != null) {
+                        return new ShadowFactory(MethodHandles.publicLookup().unreflectConstructor(constructor),
+                                arguments);
+                    }
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    System.err.println("Inspector: Cannot create shadow copies of " + type.getName() + " - " + e);
+                    return UNSUPPORTED;
+                }
+            }
+            return UNSUPPORTED;
+        }
+
+        /**
+         * Getters for the parameters after the first one, or {@code null} if a parameter does not match
+         * exactly one unused field of the same type.
+         */
+        private static List<MethodHandle> resolveArguments(Constructor<?> constructor, List<Field> fields)
+                throws IllegalAccessException {
+            var lookup = MethodHandles.lookup();
+            var used = new HashSet<Field>();
+            var getters = new ArrayList<MethodHandle>();
+            var parameterTypes = constructor.getParameterTypes();
+            for (var i = 1; i < parameterTypes.length; i++) {
+                var parameterType = parameterTypes[i];
+                var candidates = fields.stream()
+                        .filter(f -> !used.contains(f) && f.getType() == parameterType)
+                        .toList();
+                if (candidates.size() != 1) {
+                    return null;
+                }
+                var field = candidates.getFirst();
+                used.add(field);
+                field.setAccessible(true);
+                getters.add(lookup.unreflectGetter(field).asType(GETTER_TYPE));
+            }
+            return List.copyOf(getters);
+        }
+
+        /**
+         * The instance fields declared below {@link AbstractPropertyDispatcherDecorator}, which holds the
+         * wrapped dispatcher.
+         */
+        private static List<Field> instanceFields(Class<?> type) {
+            var fields = new ArrayList<Field>();
+            for (Class<?> current = type; current != AbstractPropertyDispatcherDecorator.class && current != Object.class;
+                 current = current.getSuperclass()) {
+                for (var field : current.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        fields.add(field);
+                    }
+                }
+            }
+            return fields;
+        }
+
+        private PropertyDispatcher copy(PropertyDispatcher original, PropertyDispatcher terminal) {
+            try {
+                var args = new Object[arguments.size() + 1];
+                args[0] = terminal;
+                for (var i = 0; i < arguments.size(); i++) {
+                    args[i + 1] = (Object) arguments.get(i).invokeExact((Object) original);
+                }
+                return (PropertyDispatcher) constructor.invokeWithArguments(args);
+            } catch (Throwable e) {
+                System.err.println("Inspector: Failed to copy " + original.getClass().getName() + " - " + e);
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package org.linkki.inspector;
+
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.dom.Element;
+import elemental.json.Json;
+import elemental.json.JsonArray;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.linkki.inspector.ComponentInspector.DATA_COMPONENT_ID;
+import static org.linkki.inspector.ComponentInspector.DATA_PMO_CLASS;
+import static org.linkki.inspector.ComponentInspector.DATA_PMO_PROPERTY;
+
+/**
+ * Hierarchy and registration changes of one UI, pushed to the inspector overlay.
+ * <p>
+ * Changes are only recorded while the overlay of the UI is subscribed (see
+ * {@link LinkkiInspectorUIInjector.InspectorLoader}). They are coalesced per component until the UI sends its
+ * next response and then pushed as one batch to {@code window.LinkkiInspector.applyHierarchyDeltas}, so a live
+ * tree costs bytes proportional to what changed within the round-trip:
+ * <pre>
+ * {added: [[id, parentId, className, propertyName], ...], removed: [id, ...],
+ *  rebound: [[previousId, id, className, propertyName], ...]}
+ * </pre>
+ */
+public final class HierarchyDeltas {
+
+    enum Type {
+        ADDED, REMOVED, REBOUND
+    }
+
+    private static final String APPLY_SCRIPT = "window.LinkkiInspector && window.LinkkiInspector.applyHierarchyDeltas($0)";
+
+    private static final LongAdder batches = new LongAdder();
+    private static final LongAdder deltas = new LongAdder();
+
+    private volatile boolean subscribed;
+
+    // Pending changes by component id, in the order of their last change. Only accessed with the session lock held.
+    private final Map<String, Delta> pending = new LinkedHashMap<>();
+    private boolean flushScheduled;
+
+    public boolean isSubscribed() {
+        return subscribed;
+    }
+
+    public void setSubscribed(boolean subscribe) {
+        subscribed = subscribe;
+        if (!subscribe) {
+            pending.clear();
+        }
+    }
+
+    void added(Component component, UI ui) {
+        if (!subscribed) return;
+
+        var element = component.getElement();
+        var componentId = element.getAttribute(DATA_COMPONENT_ID);
+        if (componentId != null && !isHidden(element)) {
+            record(new Delta(Type.ADDED, componentId, null, findParentId(element), getClassName(component),
+                    element.getAttribute(DATA_PMO_PROPERTY)), ui);
+        }
+    }
+
+    void removed(Component component, UI ui) {
+        if (!subscribed) return;
+
+        var componentId = component.getElement().getAttribute(DATA_COMPONENT_ID);
+        if (componentId != null) {
+            record(new Delta(Type.REMOVED, componentId, null, null, null, null), ui);
+        }
+    }
+
+    /**
+     * The attached component was registered again, e.g. bound to a PMO property after it was registered as a
+     * generic component.
+     */
+    void rebound(Component component, String previousId, UI ui) {
+        if (!subscribed) return;
+
+        var element = component.getElement();
+        var componentId = element.getAttribute(DATA_COMPONENT_ID);
+        if (componentId == null || componentId.equals(previousId)) {
+            return;
+        }
+        var previous = previousId != null ? pending.remove(previousId) : null;
+        if (previousId == null || (previous != null && previous.type() == Type.ADDED)) {
+            // The overlay does not know the previous id yet
+            record(new Delta(Type.ADDED, componentId, null, findParentId(element), getClassName(component),
+                    element.getAttribute(DATA_PMO_PROPERTY)), ui);
+        } else {
+            // Rebound twice within the round-trip: the overlay still knows the first id
+            var knownId = previous != null && previous.type() == Type.REBOUND ? previous.previousId() : previousId;
+            record(new Delta(Type.REBOUND, componentId, knownId, null, getClassName(component),
+                    element.getAttribute(DATA_PMO_PROPERTY)), ui);
+        }
+    }
+
+    private void record(Delta delta, UI ui) {
+        // The last change of a component within the round-trip wins
+        pending.remove(delta.componentId());
+        pending.put(delta.componentId(), delta);
+        if (!flushScheduled && ui != null) {
+            flushScheduled = true;
+            ui.beforeClientResponse(ui, context -> flush(context.getUI()));
+        }
+    }
+
+    private void flush(UI ui) {
+        flushScheduled = false;
+        if (pending.isEmpty() || !subscribed) {
+            pending.clear();
+            return;
+        }
+
+        var added = Json.createArray();
+        var removed = Json.createArray();
+        var rebound = Json.createArray();
+        for (var delta : pending.values()) {
+            switch (delta.type()) {
+                case ADDED -> added.set(added.length(),
+                        row(delta.componentId(), delta.parentId(), delta.className(), delta.propertyName()));
+                case REMOVED -> removed.set(removed.length(), delta.componentId());
+                case REBOUND -> rebound.set(rebound.length(),
+                        row(delta.previousId(), delta.componentId(), delta.className(), delta.propertyName()));
+            }
+        }
+        deltas.add(pending.size());
+        batches.increment();
+        pending.clear();
+
+        var batch = Json.createObject();
+        batch.put("added", added);
+        batch.put("removed", removed);
+        batch.put("rebound", rebound);
+        ui.getPage().executeJs(APPLY_SCRIPT, batch);
+    }
+
+    /**
+     * Pushed batches and the changes they contained over all UIs.
+     */
+    public static Map<String, Object> getStatistics() {
+        return Map.of("batches", batches.sum(), "deltas", deltas.sum());
+    }
+
+    private static JsonArray row(String... values) {
+        var row = Json.createArray();
+        for (var i = 0; i < values.length; i++) {
+            row.set(i, values[i] != null ? Json.create(values[i]) : Json.createNull());
+        }
+        return row;
+    }
+
+    /**
+     * The id of the node the element is listed under by {@link HierarchyScanner}.
+     */
+    private static String findParentId(Element element) {
+        var parent = findDataParent(element);
+        while (parent != null && isHidden(parent)) {
+            parent = findDataParent(parent);
+        }
+        return parent != null ? parent.getAttribute(DATA_COMPONENT_ID) : null;
+    }
+
+    /**
+     * Generic components below a PMO component are not part of the hierarchy.
+     */
+    private static boolean isHidden(Element element) {
+        if (element.getAttribute(DATA_PMO_CLASS) != null) {
+            return false;
+        }
+        var parent = findDataParent(element);
+        return parent != null && parent.getAttribute(DATA_PMO_CLASS) != null;
+    }
+
+    private static Element findDataParent(Element element) {
+        for (var parent = element.getParent(); parent != null; parent = parent.getParent()) {
+            if (parent.getAttribute(DATA_COMPONENT_ID) != null) {
+                return parent;
+            }
+        }
+        return null;
+    }
+
+    private static String getClassName(Component component) {
+        var pmoClass = component.getElement().getAttribute(DATA_PMO_CLASS);
+        var className = pmoClass != null ? pmoClass : component.getClass().getName();
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    private record Delta(Type type, String componentId, String previousId, String parentId, String className,
+                         String propertyName) {
+    }
+}
@@ -0,0 +1,89 @@
+package org.linkki.inspector;
+
+import org.linkki.inspector.code.PmoMetaData.HierarchyNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pages of a component hierarchy for lazy expansion in the overlay.
+ * <p>
+ * A level contains the requested node with a page of its children, optionally followed by further levels,
+ * and the number of children of every node so that the overlay can show expanders without loading them.
+ * Only the requested fields of each node are serialized; {@code componentId} and {@code childCount} are
+ * always included.
+ */
+public final class HierarchyLevels {
+
+    public static final Set<String> ALL_FIELDS = Set.of("className", "fullClassName", "propertyName",
+            "classLocation", "propertyLocation", "instantiationLocation", "hasInstantiationLocation", "instanceCount");
+
+    public static final int MAX_LIMIT = 1_000;
+    public static final int MAX_DEPTH = 10;
+
+    private HierarchyLevels() {
+        // Utility class
+    }
+
+    /**
+     * The first node with the given component id, breadth-first, or {@code null}.
+     */
+    public static HierarchyNode find(HierarchyNode root, String componentId) {
+        var queue = new ArrayDeque<HierarchyNode>();
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            var node = queue.poll();
+            if (componentId.equals(node.componentId)) {
+                return node;
+            }
+            if (node.children != null) {
+                queue.addAll(node.children);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The node with {@code limit} of its children starting at {@code offset}, and up to {@code depth} levels
+     * below it. Deeper levels always start at their first child.
+     */
+    public static Map<String, Object> describe(HierarchyNode node, int depth, int offset, int limit, Set<String> fields) {
+        var map = project(node, fields);
+        var children = node.children != null ? node.children : List.<HierarchyNode>of();
+        map.put("childCount", node.children != null ? children.size() : node.childCount);
+        if (node.truncated) {
+            map.put("truncated", true);
+        }
+        if (depth <= 0 || children.isEmpty()) {
+            return map;
+        }
+
+        var from = Math.min(Math.max(offset, 0), children.size());
+        var to = Math.min(from + Math.max(limit, 0), children.size());
+        var page = new ArrayList<Map<String, Object>>(to - from);
+        for (var child : children.subList(from, to)) {
+            page.add(describe(child, depth - 1, 0, limit, fields));
+        }
+        map.put("offset", from);
+        map.put("children", page);
+        return map;
+    }
+
+    private static Map<String, Object> project(HierarchyNode node, Set<String> fields) {
+        var map = new LinkedHashMap<String, Object>();
+        map.put("componentId", node.componentId);
+        if (fields.contains("className")) map.put("className", node.className);
+        if (fields.contains("fullClassName")) map.put("fullClassName", node.fullClassName);
+        if (fields.contains("propertyName")) map.put("propertyName", node.propertyName);
+        if (fields.contains("classLocation")) map.put("classLocation", node.classLocation);
+        if (fields.contains("propertyLocation")) map.put("propertyLocation", node.propertyLocation);
+        if (fields.contains("instantiationLocation")) map.put("instantiationLocation", node.instantiationLocation);
+        if (fields.contains("hasInstantiationLocation")) map.put("hasInstantiationLocation", node.hasInstantiationLocation);
+        if (fields.contains("instanceCount") && node.instanceCount > 0) map.put("instanceCount", node.instanceCount);
+        return map;
+    }
+}
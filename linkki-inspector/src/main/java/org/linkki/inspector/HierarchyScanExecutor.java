@@ -0,0 +1,102 @@
+package org.linkki.inspector;
+
+import com.vaadin.flow.component.Component;
+import org.linkki.inspector.code.PmoMetaData.HierarchyNode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Runs hierarchy scans for the REST endpoint.
+ * <p>
+ * The element tree of a UI may only be read while its {@link com.vaadin.flow.server.VaadinSession} is locked, so
+ * scans run via {@code accessSynchronously}. Each scan has a {@link ScanBudget}; when it runs out, the scan
+ * releases the lock and returns the nodes built so far, marked {@code truncated}. The completed subtrees stay
+ * in the UI's {@link LiveHierarchy}, so repeating the request with the {@link Continuation} token continues the
+ * scan instead of starting over.
+ */
+public final class HierarchyScanExecutor {
+
+    private HierarchyScanExecutor() {
+        // Utility class
+    }
+
+    /**
+     * The hierarchy of the component's UI and whether the budget was exhausted before it was complete.
+     */
+    public record Result(HierarchyNode root, boolean truncated, int scannedNodes, double scanMillis) {
+    }
+
+    public static Result scan(Component component, ScanBudget budget) {
+        return withLockOf(component, () -> {
+            budget.start();
+            var root = HierarchyScanner.buildDynamicHierarchy(component.getElement(), startScan(component, budget));
+            return new Result(root, budget.isExhausted(), budget.getVisitedNodes(), budget.getElapsedMillis());
+        });
+    }
+
+    /**
+     * Scans only the node of {@code nodeComponent} (the UI root of the component if {@code null}) and
+     * {@code depth} levels below it. The result's root is {@code null} if the node is not listed in the
+     * hierarchy.
+     */
+    public static Result scanLevel(Component component, Component nodeComponent, int depth, ScanBudget budget) {
+        return withLockOf(component, () -> {
+            budget.start();
+            var scan = startScan(component, budget).limitedTo(depth);
+            var node = nodeComponent != null
+                    ? HierarchyScanner.buildSubtree(nodeComponent.getElement(), scan)
+                    : HierarchyScanner.buildDynamicHierarchy(component.getElement(), scan);
+            return new Result(node, budget.isExhausted(), budget.getVisitedNodes(), budget.getElapsedMillis());
+        });
+    }
+
+    private static LiveHierarchy.Scan startScan(Component component, ScanBudget budget) {
+        return InspectorPartitions.lookup(p -> p.componentMetaData().containsKey(component) ? p : null)
+                .map(p -> p.hierarchy().scan(budget))
+                .orElseGet(() -> LiveHierarchy.Scan.uncached(budget));
+    }
+
+    /**
+     * Runs the action with the lock of the session the component is registered in, so that all element reads
+     * of one request see the same state. Runs it directly if the lock is already held or the component is
+     * not registered in a session of the request.
+     */
+    public static <T> T withLockOf(Component component, Supplier<T> action) {
+        var session = InspectorPartitions.findVaadinSession(component);
+        if (session == null || session.hasLock()) {
+            return action.get();
+        }
+        var result = new ArrayList<T>(1);
+        session.accessSynchronously(() -> result.add(action.get()));
+        return result.getFirst();
+    }
+
+    /**
+     * The parameters of a hierarchy level request whose scan was truncated, encoded as an opaque token.
+     */
+    public record Continuation(String componentId, String nodeId, int depth, int offset, int limit, List<String> fields) {
+
+        private static final String SEPARATOR = "\n";
+
+        public String encode() {
+            var value = String.join(SEPARATOR, componentId, nodeId != null ? nodeId : "", String.valueOf(depth),
+                    String.valueOf(offset), String.valueOf(limit), fields != null ? String.join(",", fields) : "");
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static Continuation decode(String token) {
+            var parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(SEPARATOR, -1);
+            if (parts.length != 6) {
+                throw new IllegalArgumentException("Invalid continuation token");
+            }
+            return new Continuation(parts[0], parts[1].isEmpty() ? null : parts[1], Integer.parseInt(parts[2]),
+                    Integer.parseInt(parts[3]), Integer.parseInt(parts[4]),
+                    parts[5].isEmpty() ? null : Arrays.asList(parts[5].split(",")));
+        }
+    }
+}
@@ -6,27 +6,44 @@ import com.vaadin.flow.internal.StateNode;
 import com.vaadin.flow.internal.nodefeature.ElementData;
 import org.linkki.inspector.code.PmoMetaData;
 import org.linkki.inspector.code.PmoMetaData.HierarchyNode;
-import org.linkki.inspector.code.PmoMetaData.LocationInfo;
 import org.linkki.inspector.code.PropertyLocation;
 import org.linkki.inspector.code.SourceLocation;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static org.linkki.inspector.ComponentInspector.*;
 
 public class HierarchyScanner {
 
+    /**
+     * Rows per PMO class that are inspected in grids, and PMO instances per class that are listed in other
+     * repeated containers. Set with {@code -Dlinkki.inspector.sampleRows}.
+     */
+    private static final int SAMPLE_ROWS = Math.max(1, Integer.getInteger("linkki.inspector.sampleRows", 10));
+
     public static HierarchyNode buildDynamicHierarchy(Element element) {
+        return buildDynamicHierarchy(element, LiveHierarchy.Scan.uncached());
+    }
+
+    /**
+     * Builds the hierarchy of the element's UI, reusing the nodes of clean subtrees from the scan's live model.
+     */
+    public static HierarchyNode buildDynamicHierarchy(Element element, LiveHierarchy.Scan scan) {
         Element root = findAbsoluteRoot(element);
+        return scan.node(root, r -> createRootNode(r, scan));
+    }
 
+    private static HierarchyNode createRootNode(Element root, LiveHierarchy.Scan scan) {
         HierarchyNode syntheticRoot = new HierarchyNode();
         syntheticRoot.className = "UI Root";
         syntheticRoot.fullClassName = "root";
-        syntheticRoot.children = findDirectDataChildren(root).stream()
-                .map(HierarchyScanner::createNode)
-                .filter(HierarchyScanner::isValidNode) // Filter at root level
-                .collect(Collectors.toList());
+        var childrenElements = findDirectDataChildren(root);
+        if (scan.atDepthLimit() && !childrenElements.isEmpty()) {
+            syntheticRoot.childCount = selectSampled(childrenElements).size();
+            scan.cut();
+            return syntheticRoot;
+        }
+        syntheticRoot.children = createSampledNodes(childrenElements, scan);
         return syntheticRoot;
     }
 
@@ -66,7 +83,11 @@ public class HierarchyScanner {
         return node != null && !"Unknown".equals(node.className);
     }
 
-    private static HierarchyNode createNode(Element element) {
+    private static HierarchyNode createNode(Element element, LiveHierarchy.Scan scan) {
+        return scan.node(element, e -> buildNode(e, scan));
+    }
+
+    private static HierarchyNode buildNode(Element element, LiveHierarchy.Scan scan) {
         HierarchyNode node = new HierarchyNode();
 
         var fullClassName = element.getAttribute(DATA_PMO_CLASS);
@@ -83,41 +104,146 @@ public class HierarchyScanner {
         var childrenElements = findDirectDataChildren(element);
 
         if (childrenElements.size() == 1 && isGrid(childrenElements.getFirst())) {
-            return createGroupedNode(childrenElements.getFirst());
+            return createGroupedNode(childrenElements.getFirst(), scan);
         }
 
-        node.children = childrenElements.stream()
-                .map(HierarchyScanner::createNode)
-                .filter(HierarchyScanner::isValidNode) // Filter: remove Unknowns
-                .collect(Collectors.toList());
+        if (scan.atDepthLimit() && !childrenElements.isEmpty()) {
+            // Counted without building the children, which may still turn out to be empty
+            node.childCount = selectSampled(childrenElements).size();
+            scan.cut();
+            return node;
+        }
+
+        node.children = createSampledNodes(childrenElements, scan);
 
         return node;
     }
 
-    private static HierarchyNode createPmoNode(Element element) {
-        HierarchyNode node = new HierarchyNode();
+    /**
+     * The node of the element as it is listed in the hierarchy of its UI, built down to the depth limit of the
+     * scan. Returns {@code null} if the element is not listed.
+     */
+    public static HierarchyNode buildSubtree(Element element, LiveHierarchy.Scan scan) {
+        var dataParent = findDataParent(element);
+        if (dataParent != null && isGroupedGrid(dataParent)) {
+            // Rows are grouped by PMO class, so the node of a cell only exists within the node of the whole grid
+            var gridNode = buildSubtree(dataParent, scan.unlimited());
+            var componentId = element.getAttribute(DATA_COMPONENT_ID);
+            return gridNode != null && componentId != null ? HierarchyLevels.find(gridNode, componentId) : null;
+        }
+        if (isGroupedGrid(element)) {
+            // Listed in place of its parent, whose node is built from the grid
+            return createNode(dataParent, scan);
+        }
+        return createNode(element, scan);
+    }
 
-        var component = element.getComponent().get();
-        
-        var componentId = element.getAttribute(DATA_COMPONENT_ID);
-        node.componentId = componentId;
+    /**
+     * Whether the element is a grid whose rows are grouped, see {@link #buildNode}.
+     */
+    private static boolean isGroupedGrid(Element element) {
+        if (!isGrid(element)) {
+            return false;
+        }
+        var dataParent = findDataParent(element);
+        if (dataParent == null) {
+            return false;
+        }
+        var siblings = findDirectDataChildren(dataParent);
+        return siblings.size() == 1 && siblings.getFirst().getNode() == element.getNode();
+    }
 
-        var metaData = ComponentInspector.getPmoMetaData(component);
-        var pmoInstanceInfo = ComponentInspector.getPmoInstanceMetaData(metaData.getPmoInstance());
+    private static Element findDataParent(Element element) {
+        for (var parent = element.getParent(); parent != null; parent = parent.getParent()) {
+            if (parent.getAttribute(DATA_COMPONENT_ID) != null) {
+                return parent;
+            }
+        }
+        return null;
+    }
 
-        enrichNodeWithLocation(node, pmoInstanceInfo);
+    /**
+     * Nodes for the children, but only of the first {@link #SAMPLE_ROWS} PMO instances of each PMO class; these
+     * carry the number of instances of their class as {@code instanceCount}. All properties of a sampled
+     * instance are kept, and children without a PMO instance are never sampled.
+     */
+    private static List<HierarchyNode> createSampledNodes(List<Element> childrenElements, LiveHierarchy.Scan scan) {
+        var nodes = new ArrayList<HierarchyNode>(childrenElements.size());
+        for (var child : selectSampled(childrenElements)) {
+            var node = createNode(child.element(), scan);
+            if (isValidNode(node)) {
+                // Cached nodes are shared, the count belongs to this parent
+                nodes.add(child.instanceCount() > 0 ? withInstanceCount(node, child.instanceCount()) : node);
+            }
+        }
+        return nodes;
+    }
 
-        List<Element> childrenElements = findDirectDataChildren(element);
+    /**
+     * The children that are listed, see {@link #createSampledNodes}, with the number of instances of their
+     * PMO class if it was sampled, 0 otherwise.
+     */
+    private static List<SampledChild> selectSampled(List<Element> childrenElements) {
+        var instances = new HashMap<String, Set<String>>();
+        for (var child : childrenElements) {
+            var pmoClass = extractPmoClassName(child);
+            var instanceId = child.getAttribute(DATA_PMO_INSTANCE_ID);
+            if (pmoClass != null && instanceId != null) {
+                instances.computeIfAbsent(pmoClass, c -> new LinkedHashSet<>()).add(instanceId);
+            }
+        }
 
-        if (childrenElements.size() == 1 && isGrid(childrenElements.getFirst())) {
-            return createGroupedNode(childrenElements.getFirst());
+        var sampled = new HashMap<String, Set<String>>();
+        var selected = new ArrayList<SampledChild>(childrenElements.size());
+        for (var child : childrenElements) {
+            var pmoClass = extractPmoClassName(child);
+            var instanceId = child.getAttribute(DATA_PMO_INSTANCE_ID);
+            var count = pmoClass != null && instanceId != null ? instances.get(pmoClass).size() : 1;
+            if (count > SAMPLE_ROWS) {
+                var sampledInstances = sampled.computeIfAbsent(pmoClass, c -> new HashSet<>());
+                if (!sampledInstances.contains(instanceId)) {
+                    if (sampledInstances.size() >= SAMPLE_ROWS) {
+                        continue;
+                    }
+                    sampledInstances.add(instanceId);
+                }
+            }
+            selected.add(new SampledChild(child, count > SAMPLE_ROWS ? count : 0));
         }
+        return selected;
+    }
+
+    private record SampledChild(Element element, int instanceCount) {
+    }
+
+    private static HierarchyNode withInstanceCount(HierarchyNode node, int instanceCount) {
+        var copy = new HierarchyNode();
+        copy.className = node.className;
+        copy.fullClassName = node.fullClassName;
+        copy.propertyName = node.propertyName;
+        copy.classLocation = node.classLocation;
+        copy.propertyLocation = node.propertyLocation;
+        copy.instantiationLocation = node.instantiationLocation;
+        copy.hasInstantiationLocation = node.hasInstantiationLocation;
+        copy.children = node.children;
+        copy.componentId = node.componentId;
+        copy.truncated = node.truncated;
+        copy.instanceCount = instanceCount;
+        copy.childCount = node.childCount;
+        return copy;
+    }
 
-        node.children = childrenElements.stream()
-                .map(HierarchyScanner::createNode)
-                .filter(HierarchyScanner::isValidNode) // Filter: remove Unknowns
-                .collect(Collectors.toList());
+    /**
+     * Node of the PMO of a grid row, its children are set by {@link #createGroupedNode}.
+     */
+    private static HierarchyNode createPmoNode(Element element) {
+        HierarchyNode node = new HierarchyNode();
+        node.componentId = element.getAttribute(DATA_COMPONENT_ID);
 
+        var metaData = element.getComponent().map(ComponentInspector::getPmoMetaData).orElse(null);
+        if (metaData != null) {
+            enrichNodeWithLocation(node, ComponentInspector.getPmoInstanceMetaData(metaData.getPmoInstance()));
+        }
         return node;
     }
 
@@ -125,7 +251,7 @@ public class HierarchyScanner {
         return element.getComponent().orElse(null) instanceof Grid;
     }
 
-    private static HierarchyNode createGroupedNode(Element element) {
+    private static HierarchyNode createGroupedNode(Element element, LiveHierarchy.Scan scan) {
         HierarchyNode node = new HierarchyNode();
 
         var fullClassName = element.getAttribute(DATA_PMO_CLASS);
@@ -139,17 +265,32 @@ public class HierarchyScanner {
 
         enrichNodeWithLocation(node, componentId);
 
-        List<Element> childrenElements = findDirectDataChildren(element);
-        var distinctRows = childrenElements.stream().collect(Collectors.groupingBy(HierarchyScanner::extractPmoClassName));
-        var groupedByProperties = distinctRows.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey,
-                entry -> entry.getValue().stream().collect(Collectors.groupingBy(HierarchyScanner::extractPmoClassNameAndPropertyName))));
-
-        node.children = distinctRows.keySet().stream()
-                .map(row -> {
-                    var pmoNode = createPmoNode(distinctRows.get(row).getFirst());
-                    pmoNode.children = groupedByProperties.get(row).values().stream()
-                            .map(List::getFirst)
-                            .map(HierarchyScanner::createNode)
+        // One pass over the cells: all rows are counted, only the sampled rows contribute properties
+        var rowGroups = new LinkedHashMap<String, RowGroup>();
+        for (var cell : findDirectDataChildren(element)) {
+            rowGroups.computeIfAbsent(extractPmoClassName(cell), c -> new RowGroup(cell)).add(cell);
+        }
+
+        if (scan.atDepthLimit() && !rowGroups.isEmpty()) {
+            node.childCount = rowGroups.size();
+            scan.cut();
+            return node;
+        }
+
+        // The row PMO nodes are one level below the grid, their properties two
+        var rowLimit = scan.atDepthLimit(1);
+        node.children = rowGroups.values().stream()
+                .map(group -> {
+                    var pmoNode = createPmoNode(group.representative);
+                    pmoNode.instanceCount = group.rowIds.size();
+                    if (rowLimit && !group.properties.isEmpty()) {
+                        pmoNode.childCount = group.properties.size();
+                        scan.cut();
+                        return pmoNode;
+                    }
+                    // The sampled rows share one shape: the first cell per property stands for all rows
+                    pmoNode.children = group.properties.values().stream()
+                            .map(child -> createNode(child, scan))
                             .filter(HierarchyScanner::isValidNode) // Filter: remove Unknowns
                             .toList();
                     return pmoNode;
@@ -157,13 +298,32 @@ public class HierarchyScanner {
         return node;
     }
 
-    // ... [extractPmoClassName, extractPmoClassNameAndPropertyName, enrichNodeWithLocation(node, componentId) remain unchanged] ...
-    private static String extractPmoClassName(Element element) {
-        return element.getAttribute(DATA_PMO_CLASS);
+    /**
+     * The cells of the rows of one PMO class in a grid.
+     */
+    private static final class RowGroup {
+        private final Element representative;
+        private final Set<String> rowIds = new HashSet<>();
+        private final Set<String> sampledRowIds = new HashSet<>();
+        private final Map<String, Element> properties = new LinkedHashMap<>();
+
+        private RowGroup(Element representative) {
+            this.representative = representative;
+        }
+
+        private void add(Element cell) {
+            var rowId = Objects.requireNonNullElse(cell.getAttribute(DATA_PMO_INSTANCE_ID), "");
+            rowIds.add(rowId);
+            if (sampledRowIds.contains(rowId) || sampledRowIds.size() < SAMPLE_ROWS) {
+                sampledRowIds.add(rowId);
+                properties.putIfAbsent(cell.getAttribute(DATA_PMO_PROPERTY), cell);
+            }
+        }
     }
 
-    private static String extractPmoClassNameAndPropertyName(Element element) {
-        return element.getAttribute(DATA_PMO_CLASS) + "." + element.getAttribute(DATA_PMO_PROPERTY);
+    // ... [extractPmoClassName, enrichNodeWithLocation(node, componentId) remain unchanged] ...
+    private static String extractPmoClassName(Element element) {
+        return element.getAttribute(DATA_PMO_CLASS);
     }
 
     private static void enrichNodeWithLocation(HierarchyNode node, String componentId) {
@@ -186,34 +346,36 @@ public class HierarchyScanner {
             }
 
             if (metadata.getClassLocation() != null) {
-                node.classLocation = new LocationInfo(
+                node.classLocation = LocationInfoPool.intern(
                         metadata.getClassLocation().getFileName(),
                         metadata.getClassLocation().getLineNumber(),
                         metadata.getClassLocation().getClassName(),
-                        null
+                        null,
+                        metadata.getClassLocation().getOutermostClassName()
                 );
-                node.classLocation.outermostClassName = metadata.getClassLocation().getOutermostClassName();
                 node.className = metadata.getClassLocation().getClassName();
                 node.fullClassName = metadata.getClassLocation().getOutermostClassName();
             }
 
             if (metadata.getPropertyLocation() != null) {
-                node.propertyLocation = new LocationInfo(
+                node.propertyLocation = LocationInfoPool.intern(
                         metadata.getPropertyLocation().getFileName(),
                         metadata.getPropertyLocation().getLineNumber(),
                         metadata.getPropertyLocation().getClassName(),
-                        metadata.getPropertyLocation().getMethodName()
+                        metadata.getPropertyLocation().getMethodName(),
+                        null
                 );
             }
 
             // CHECK: Only add instantiation location if it is useful (not system/spring reflection)
             if (metadata.getInstantiationLocation() != null && isUsefulInstantiation(metadata.getInstantiationLocation())) {
                 node.hasInstantiationLocation = true;
-                node.instantiationLocation = new LocationInfo(
+                node.instantiationLocation = LocationInfoPool.intern(
                         metadata.getInstantiationLocation().getFileName(),
                         metadata.getInstantiationLocation().getLineNumber(),
                         metadata.getInstantiationLocation().getClassName(),
-                        (metadata.getInstantiationLocation() instanceof PropertyLocation) ? ((PropertyLocation) metadata.getInstantiationLocation()).getMethodName() : null
+                        (metadata.getInstantiationLocation() instanceof PropertyLocation) ? ((PropertyLocation) metadata.getInstantiationLocation()).getMethodName() : null,
+                        null
                 );
             }
 
@@ -231,8 +393,8 @@ public class HierarchyScanner {
     }
 
     private static List<Element> findDirectDataChildren(Element parent) {
-        var results = new LinkedList<Element>();
-        var queue = new LinkedList<StateNode>();
+        var results = new ArrayList<Element>();
+        var queue = new ArrayDeque<StateNode>();
 
         boolean parentIsPmo = parent.getAttribute(DATA_PMO_CLASS) != null;
 
@@ -0,0 +1,129 @@
+package org.linkki.inspector;
+
+import org.linkki.inspector.code.PmoMetaData.HierarchyNode;
+import org.linkki.inspector.code.PmoMetaData.LocationInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A hierarchy with structurally identical subtrees stored once.
+ * <p>
+ * A shape is a node without its component id: its class, property, locations and the shapes of its children.
+ * Shapes are hash-consed bottom-up, so the subtrees of repeated PMO classes (list sections, nested container
+ * PMOs) share one shape, and locations are listed once per {@link LocationInfoPool} flyweight. The component
+ * ids of all nodes follow in pre-order, which is all that differs between the instances of a shape:
+ * <pre>
+ * {shapeFields: [...], shapes: [[className, ..., [childShape, ...]], ...],
+ *  locationFields: [...], locations: [[fileName, ...], ...], root: shape, componentIds: [id, ...]}
+ * </pre>
+ * Location fields of a shape are indexes into {@code locations}.
+ */
+public final class HierarchyShapes {
+
+    public static final List<String> SHAPE_FIELDS = List.of("className", "fullClassName", "propertyName",
+            "classLocation", "propertyLocation", "instantiationLocation", "hasInstantiationLocation",
+            "instanceCount", "truncated", "children");
+    public static final List<String> LOCATION_FIELDS = List.of("fileName", "lineNumber", "className",
+            "methodName", "outermostClassName");
+
+    private final Map<Shape, Integer> shapeIds = new HashMap<>();
+    private final List<Shape> shapes = new ArrayList<>();
+    // Pooled locations are compared by identity, others are listed once per node
+    private final Map<LocationInfo, Integer> locationIds = new IdentityHashMap<>();
+    private final List<LocationInfo> locations = new ArrayList<>();
+    private final List<String> componentIds = new ArrayList<>();
+
+    private HierarchyShapes() {
+    }
+
+    public static Map<String, Object> encode(HierarchyNode root) {
+        var encoder = new HierarchyShapes();
+        var rootShape = encoder.shapeOf(root);
+
+        var response = new LinkedHashMap<String, Object>();
+        response.put("shapeFields", SHAPE_FIELDS);
+        response.put("shapes", encoder.shapes.stream().map(Shape::toRow).toList());
+        response.put("locationFields", LOCATION_FIELDS);
+        response.put("locations", encoder.locations.stream().map(HierarchyShapes::locationToRow).toList());
+        response.put("root", rootShape);
+        response.put("componentIds", encoder.componentIds);
+        return response;
+    }
+
+    private int shapeOf(HierarchyNode node) {
+        // Pre-order: the node's id before those of its children
+        componentIds.add(node.componentId);
+        var children = node.children != null ? node.children : List.<HierarchyNode>of();
+        var childShapes = new int[children.size()];
+        for (var i = 0; i < childShapes.length; i++) {
+            childShapes[i] = shapeOf(children.get(i));
+        }
+
+        var shape = new Shape(node.className, node.fullClassName, node.propertyName,
+                locationId(node.classLocation), locationId(node.propertyLocation),
+                locationId(node.instantiationLocation), node.hasInstantiationLocation, node.instanceCount,
+                node.truncated, childShapes);
+        var id = shapeIds.get(shape);
+        if (id == null) {
+            id = shapes.size();
+            shapes.add(shape);
+            shapeIds.put(shape, id);
+        }
+        return id;
+    }
+
+    private Integer locationId(LocationInfo location) {
+        if (location == null) {
+            return null;
+        }
+        return locationIds.computeIfAbsent(location, l -> {
+            locations.add(l);
+            return locations.size() - 1;
+        });
+    }
+
+    private static List<Object> locationToRow(LocationInfo location) {
+        return Arrays.asList(location.fileName, location.lineNumber, location.className, location.methodName,
+                location.outermostClassName);
+    }
+
+    private record Shape(String className, String fullClassName, String propertyName, Integer classLocation,
+                         Integer propertyLocation, Integer instantiationLocation, boolean hasInstantiationLocation,
+                         int instanceCount, boolean truncated, int[] children) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Shape other
+                    && hasInstantiationLocation == other.hasInstantiationLocation
+                    && instanceCount == other.instanceCount
+                    && truncated == other.truncated
+                    && Objects.equals(className, other.className)
+                    && Objects.equals(fullClassName, other.fullClassName)
+                    && Objects.equals(propertyName, other.propertyName)
+                    && Objects.equals(classLocation, other.classLocation)
+                    && Objects.equals(propertyLocation, other.propertyLocation)
+                    && Objects.equals(instantiationLocation, other.instantiationLocation)
+                    && Arrays.equals(children, other.children);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hash(className, fullClassName, propertyName, classLocation,
+                    propertyLocation, instantiationLocation, hasInstantiationLocation, instanceCount, truncated)
+                    + Arrays.hashCode(children);
+        }
+
+        List<Object> toRow() {
+            return Arrays.asList(className, fullClassName, propertyName, classLocation, propertyLocation,
+                    instantiationLocation, hasInstantiationLocation, instanceCount, truncated,
+                    Arrays.stream(children).boxed().toList());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.linkki.inspector;
+
+import org.linkki.inspector.index.PmoLocationIndex;
+
+/**
+ * Resolves line numbers from the compile-time {@link PmoLocationIndex}.
+ * <p>
+ * Answers from memory without reflection or file I/O, but only knows the PMO classes of projects that were
+ * compiled with the inspector on the class path. The index is loaded once per JVM and goes stale when classes
+ * are recompiled, so it only answers for classes without a source file.
+ */
+public class IndexedLineNumberResolver implements LineNumberResolver {
+
+    @Override
+    public int findMethodLine(String className, String methodName) {
+        if (SourceCodeParser.hasSourceFile(className)) {
+            return -1;
+        }
+        return PmoLocationIndex.getInstance().findMethodLine(className, methodName);
+    }
+
+    @Override
+    public int findClassLine(String className) {
+        if (SourceCodeParser.hasSourceFile(className)) {
+            return -1;
+        }
+        return PmoLocationIndex.getInstance().findClassLine(className);
+    }
+}
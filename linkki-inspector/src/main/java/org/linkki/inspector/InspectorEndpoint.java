@@ -1,14 +1,29 @@
 package org.linkki.inspector;
 
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.server.VaadinSession;
+import jakarta.servlet.http.HttpServletRequest;
+import org.linkki.inspector.code.PmoMetaData;
 import org.linkki.inspector.code.PropertyLocation;
 import org.linkki.inspector.code.SourceLocation;
+import org.linkki.inspector.index.PmoLocationIndex;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * REST endpoint for Component Inspector
@@ -17,8 +32,25 @@ import java.util.Map;
 @RequestMapping("/inspector")
 public class InspectorEndpoint {
 
+    private static final int MAX_BATCH_SIZE = 500;
+
+    private static final List<String> LOCATION_ROW_FIELDS = List.of("componentId", "pmoClassName", "propertyName",
+            "pmoInstanceId", "classLocation", "propertyLocation", "instantiationLocation", "hierarchyPath",
+            "dispatcherHistory", "dispatcherLatency");
+    private static final List<String> LOCATION_FIELDS = List.of("fileName", "lineNumber", "className", "methodName");
+
+    /**
+     * Locations, dispatcher history and, unless {@code hierarchy=false}, the full hierarchy of the component's UI.
+     */
     @GetMapping("/location")
-    public Map<String, Object> getComponentLocation(@RequestParam("componentId") String componentId) {
+    public Map<String, Object> getComponentLocation(@RequestParam("componentId") String componentId,
+            @RequestParam(value = "hierarchy", defaultValue = "true") boolean includeHierarchy,
+            HttpServletRequest request) {
+        // Route all registry lookups to the partitions of the requesting session
+        return InspectorPartitions.withSessionOf(request, () -> findComponentLocation(componentId, includeHierarchy));
+    }
+
+    private Map<String, Object> findComponentLocation(String componentId, boolean includeHierarchy) {
         Map<String, Object> response = new HashMap<>();
 
         try {
@@ -56,18 +88,26 @@ public class InspectorEndpoint {
                 response.put("hasInstantiationLocation", false);
             }
 
-            // DYNAMIC HIERARCHY GENERATION
-            // 1. Calculate path from current element up to root
-            response.put("hierarchyPath", HierarchyScanner.calculateHierarchyPath(component.getElement()));
+            // DYNAMIC HIERARCHY GENERATION, with one session lock for all element reads
+            HierarchyScanExecutor.withLockOf(component, () -> {
+                // 1. Calculate path from current element up to root
+                response.put("hierarchyPath", HierarchyScanner.calculateHierarchyPath(component.getElement()));
 
-            // 2. Build full tree starting from the UI root
-            var hierarchyRoot = HierarchyScanner.buildDynamicHierarchy(component.getElement());
-            response.put("hierarchy", hierarchyRoot);
+                // 2. Build full tree starting from the UI root, only dirty subtrees are scanned again
+                if (includeHierarchy) {
+                    putHierarchy(response, componentId, component);
+                }
+                return response;
+            });
 
             // 3. Dispatcher History
             if (metadata.getPropertyName() != null) {
+                // Selected in the overlay: analyze the pulls of this property from now on in targeted mode
+                DispatcherCapture.target(metadata.getPmoInstance(), metadata.getPropertyName());
                 var history = DispatcherChainInspector.getHistory(metadata.getPmoInstance(), metadata.getPropertyName());
                 response.put("dispatcherHistory", history);
+                response.put("dispatcherLatency",
+                        DispatcherLatencyStats.getBreakdown(metadata.getPmoClassName(), metadata.getPropertyName()));
             }
 
         } catch (Exception e) {
@@ -79,6 +119,330 @@ public class InspectorEndpoint {
         return response;
     }
 
+    /**
+     * Locations of many components in one request, as a compact table: {@code fields} names the columns of
+     * each row in {@code rows}, locations are arrays of {@code locationFields}. Ids that are not registered are
+     * listed in {@code missing}. With {@code hierarchy=true}, the hierarchy of the first component's UI is
+     * scanned once and shared by all rows.
+     */
+    @PostMapping("/locations")
+    public Map<String, Object> getComponentLocations(@RequestBody List<String> componentIds,
+            @RequestParam(value = "hierarchy", defaultValue = "false") boolean includeHierarchy,
+            HttpServletRequest request) {
+        if (componentIds.size() > MAX_BATCH_SIZE) {
+            return Map.of("error", "At most " + MAX_BATCH_SIZE + " component ids per request");
+        }
+        return InspectorPartitions.withSessionOf(request, () -> findComponentLocations(componentIds, includeHierarchy));
+    }
+
+    private Map<String, Object> findComponentLocations(List<String> componentIds, boolean includeHierarchy) {
+        var components = ComponentRegistry.getComponentsById(componentIds);
+
+        var found = new LinkedHashMap<String, Component>();
+        var missing = new ArrayList<String>();
+        // Components by the session they are registered in, usually all in one
+        var bySession = new LinkedHashMap<VaadinSession, List<Component>>();
+        for (var componentId : componentIds) {
+            var component = components.get(componentId);
+            if (component == null || ComponentInspector.getPmoMetaData(component) == null) {
+                missing.add(componentId);
+                continue;
+            }
+            found.put(componentId, component);
+            bySession.computeIfAbsent(InspectorPartitions.findVaadinSession(component), s -> new ArrayList<>())
+                    .add(component);
+        }
+
+        var response = new HashMap<String, Object>();
+        var first = found.entrySet().stream().findFirst().orElse(null);
+        // One session lock for the element reads of all components of a session and the shared hierarchy
+        var paths = new IdentityHashMap<Component, String>();
+        for (var sessionComponents : bySession.values()) {
+            HierarchyScanExecutor.withLockOf(sessionComponents.getFirst(), () -> {
+                for (var component : sessionComponents) {
+                    paths.put(component, HierarchyScanner.calculateHierarchyPath(component.getElement()));
+                }
+                if (includeHierarchy && sessionComponents.contains(first.getValue())) {
+                    putHierarchy(response, first.getKey(), first.getValue());
+                }
+                return paths;
+            });
+        }
+
+        var rows = new ArrayList<List<Object>>(found.size());
+        found.forEach((componentId, component) -> rows.add(
+                locationRow(componentId, ComponentInspector.getPmoMetaData(component), paths.get(component))));
+        response.put("fields", LOCATION_ROW_FIELDS);
+        response.put("locationFields", LOCATION_FIELDS);
+        response.put("rows", rows);
+        response.put("missing", missing);
+        return response;
+    }
+
+    private List<Object> locationRow(String componentId, PmoMetaData metadata, String hierarchyPath) {
+        Object history = null;
+        Object latency = null;
+        if (metadata.getPropertyName() != null) {
+            DispatcherCapture.target(metadata.getPmoInstance(), metadata.getPropertyName());
+            history = DispatcherChainInspector.getHistory(metadata.getPmoInstance(), metadata.getPropertyName());
+            latency = DispatcherLatencyStats.getBreakdown(metadata.getPmoClassName(), metadata.getPropertyName());
+        }
+        // Same order as LOCATION_ROW_FIELDS; Arrays.asList, because columns may be null
+        return Arrays.asList(
+                componentId,
+                metadata.getClassLocation() != null ? metadata.getClassLocation().getClassName() : metadata.getPmoClassName(),
+                metadata.getPropertyName(),
+                String.valueOf(System.identityHashCode(metadata.getPmoInstance())),
+                locationToRow(metadata.getClassLocation()),
+                locationToRow(metadata.getPropertyLocation()),
+                locationToRow(metadata.getInstantiationLocation()),
+                hierarchyPath,
+                history,
+                latency
+        );
+    }
+
+    /**
+     * One level of the hierarchy of the component's UI for lazy expansion: the node with the given
+     * {@code nodeId} (the UI root if omitted), a page of its children and up to {@code depth} levels below it,
+     * with child counts and only the requested {@code fields}.
+     * <p>
+     * The scan holds the session lock for at most {@code timeBudgetMillis} and builds at most
+     * {@code nodeBudget} nodes. If that is not enough, the response is marked {@code truncated} and contains a
+     * {@code continuationToken} for {@code /hierarchy/continue}.
+     */
+    @GetMapping("/hierarchy")
+    public Map<String, Object> getHierarchyLevel(@RequestParam("componentId") String componentId,
+            @RequestParam(value = "nodeId", required = false) String nodeId,
+            @RequestParam(value = "depth", defaultValue = "1") int depth,
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            @RequestParam(value = "fields", required = false) List<String> fields,
+            @RequestParam(value = "timeBudgetMillis", required = false) Long timeBudgetMillis,
+            @RequestParam(value = "nodeBudget", required = false) Integer nodeBudget,
+            HttpServletRequest request) {
+        var level = new HierarchyScanExecutor.Continuation(componentId, nodeId, depth, offset, limit, fields);
+        return InspectorPartitions.withSessionOf(request, () -> findHierarchyLevel(level, ScanBudget.of(timeBudgetMillis, nodeBudget)));
+    }
+
+    /**
+     * Continues a truncated hierarchy scan with a fresh budget.
+     */
+    @GetMapping("/hierarchy/continue")
+    public Map<String, Object> continueHierarchyScan(@RequestParam("token") String token,
+            @RequestParam(value = "timeBudgetMillis", required = false) Long timeBudgetMillis,
+            @RequestParam(value = "nodeBudget", required = false) Integer nodeBudget,
+            HttpServletRequest request) {
+        HierarchyScanExecutor.Continuation level;
+        try {
+            level = HierarchyScanExecutor.Continuation.decode(token);
+        } catch (IllegalArgumentException e) {
+            return Map.of("error", "Invalid continuation token");
+        }
+        return InspectorPartitions.withSessionOf(request, () -> findHierarchyLevel(level, ScanBudget.of(timeBudgetMillis, nodeBudget)));
+    }
+
+    /**
+     * The complete hierarchy of the component's UI with repeated subtrees stored once, see
+     * {@link HierarchyShapes}. Meant for external tools, the overlay loads the hierarchy level by level. A
+     * {@code truncated} scan is continued by repeating the request, since the subtrees completed so far are
+     * kept.
+     */
+    @GetMapping("/hierarchy/shapes")
+    public Map<String, Object> getHierarchyShapes(@RequestParam("componentId") String componentId,
+            @RequestParam(value = "timeBudgetMillis", required = false) Long timeBudgetMillis,
+            @RequestParam(value = "nodeBudget", required = false) Integer nodeBudget,
+            HttpServletRequest request) {
+        return InspectorPartitions.withSessionOf(request, () -> {
+            var component = ComponentRegistry.getComponentById(componentId).orElse(null);
+            if (component == null) {
+                return Map.of("error", "Component instance not found");
+            }
+            var result = HierarchyScanExecutor.scan(component, ScanBudget.of(timeBudgetMillis, nodeBudget));
+            var response = HierarchyShapes.encode(result.root());
+            response.put("scannedNodes", result.scannedNodes());
+            response.put("scanMillis", result.scanMillis());
+            if (result.truncated()) {
+                response.put("truncated", true);
+            }
+            return response;
+        });
+    }
+
+    private Map<String, Object> findHierarchyLevel(HierarchyScanExecutor.Continuation level, ScanBudget budget) {
+        var component = ComponentRegistry.getComponentById(level.componentId()).orElse(null);
+        if (component == null) {
+            return Map.of("error", "Component instance not found");
+        }
+        Component nodeComponent = null;
+        if (level.nodeId() != null) {
+            nodeComponent = ComponentRegistry.getComponentById(level.nodeId()).orElse(null);
+            if (nodeComponent == null) {
+                return Map.of("error", "Hierarchy node not found");
+            }
+        }
+        // Only the requested levels are scanned, starting at the node
+        var depth = Math.min(level.depth(), HierarchyLevels.MAX_DEPTH);
+        var result = HierarchyScanExecutor.scanLevel(component, nodeComponent, depth, budget);
+        var node = result.root();
+
+        Map<String, Object> response;
+        if (node != null) {
+            response = HierarchyLevels.describe(node,
+                    depth,
+                    level.offset(),
+                    Math.min(level.limit(), HierarchyLevels.MAX_LIMIT),
+                    level.fields() != null ? new HashSet<>(level.fields()) : HierarchyLevels.ALL_FIELDS);
+        } else if (result.truncated()) {
+            // Not reached within the budget yet
+            response = new HashMap<>();
+            response.put("componentId", level.nodeId());
+        } else {
+            return Map.of("error", "Hierarchy node not found");
+        }
+        putScanResult(response, result, level);
+        return response;
+    }
+
+    private static void putScanResult(Map<String, Object> response, HierarchyScanExecutor.Result result,
+            HierarchyScanExecutor.Continuation continuation) {
+        response.put("scannedNodes", result.scannedNodes());
+        response.put("scanMillis", result.scanMillis());
+        if (result.truncated()) {
+            response.put("truncated", true);
+            response.put("continuationToken", continuation.encode());
+        }
+    }
+
+    /**
+     * Adds the full hierarchy of the component's UI, scanned within the default budget. A truncated scan can be
+     * continued level-wise via {@code /hierarchy/continue}.
+     */
+    private static void putHierarchy(Map<String, Object> response, String componentId, Component component) {
+        var result = HierarchyScanExecutor.scan(component, ScanBudget.of(null, null));
+        response.put("hierarchy", result.root());
+        if (result.truncated()) {
+            response.put("hierarchyTruncated", true);
+            response.put("hierarchyContinuationToken", new HierarchyScanExecutor.Continuation(componentId, null,
+                    HierarchyLevels.MAX_DEPTH, 0, HierarchyLevels.MAX_LIMIT, null).encode());
+        }
+    }
+
+    /**
+     * Entry counts and eviction rates of the inspector registries, used to verify that the heap stays flat
+     * under sustained load, and hit rates of the lookup caches.
+     */
+    @GetMapping("/stats")
+    public Map<String, Object> getStatistics() {
+        var stats = new HashMap<String, Object>();
+        stats.put("registries", InspectorPartitions.getStatistics());
+        stats.put("caches", List.of(PropertyMethodTable.getStatistics(), LiveHierarchy.getCacheStatistics(),
+                LocationInfoPool.getStatistics()));
+        stats.put("hierarchyDeltas", HierarchyDeltas.getStatistics());
+        stats.put("dispatcherLatency", DispatcherLatencyStats.getStatistics());
+        stats.put("pmoLocationIndex", Map.of("classes", PmoLocationIndex.getInstance().size()));
+        return stats;
+    }
+
+    /**
+     * The dispatcher chain links with the highest total pull time, optionally of a single PMO class.
+     */
+    @GetMapping("/latency")
+    public List<Map<String, Object>> getDispatcherLatency(@RequestParam(value = "pmoClass", required = false) String pmoClass,
+            @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        return DispatcherLatencyStats.getTop(pmoClass, limit);
+    }
+
+    @DeleteMapping("/latency")
+    public void clearDispatcherLatency() {
+        DispatcherLatencyStats.clear();
+    }
+
+    /**
+     * Aspects that are pulled repeatedly within a round-trip without their value changing.
+     */
+    @GetMapping("/redundant-pulls")
+    public Map<String, Object> getRedundantPulls(@RequestParam(value = "limit", defaultValue = "50") int limit) {
+        return RedundantPullDetector.getReport(limit);
+    }
+
+    @PostMapping("/redundant-pulls")
+    public Map<String, Object> setRedundantPullDetection(@RequestParam("enabled") boolean enabled) {
+        RedundantPullDetector.setEnabled(enabled);
+        return RedundantPullDetector.getReport(0);
+    }
+
+    @DeleteMapping("/redundant-pulls")
+    public void resetRedundantPulls() {
+        RedundantPullDetector.reset();
+    }
+
+    /**
+     * CPU time that memoizing the selected aspects within a round-trip would save, and divergences.
+     */
+    @GetMapping("/memoization")
+    public Map<String, Object> getMemoizationReport(@RequestParam(value = "limit", defaultValue = "50") int limit) {
+        return MemoizationAdvisor.getReport(limit);
+    }
+
+    /**
+     * Switches the what-if cache (OFF, SHADOW, SERVE) for the given aspect names, or for all aspects if none
+     * are given.
+     */
+    @PostMapping("/memoization")
+    public Map<String, Object> setMemoizationMode(@RequestParam("mode") String mode,
+            @RequestParam(value = "aspects", required = false) List<String> aspects) {
+        var memoizationMode = MemoizationAdvisor.parseMode(mode);
+        if (memoizationMode == null) {
+            var response = new HashMap<>(MemoizationAdvisor.getReport(0));
+            response.put("error", "Unknown memoization mode '" + mode + "'");
+            return response;
+        }
+        MemoizationAdvisor.setMode(memoizationMode, aspects != null ? new HashSet<>(aspects) : Set.of());
+        return MemoizationAdvisor.getReport(0);
+    }
+
+    @DeleteMapping("/memoization")
+    public void resetMemoizationReport() {
+        MemoizationAdvisor.reset();
+    }
+
+    @GetMapping("/capture")
+    public Map<String, Object> getCaptureSettings() {
+        return DispatcherCapture.getSettings();
+    }
+
+    /**
+     * Switches the dispatcher capture mode (OFF, ALL, SAMPLED, TARGETED) and optionally the sample rate.
+     */
+    @PostMapping("/capture")
+    public Map<String, Object> setCaptureSettings(@RequestParam("mode") String mode,
+            @RequestParam(value = "sampleRate", required = false) Integer sampleRate) {
+        if (sampleRate != null) {
+            DispatcherCapture.setSampleRate(sampleRate);
+        }
+        DispatcherCapture.setMode(DispatcherCapture.parseMode(mode, DispatcherCapture.getMode()));
+        return DispatcherCapture.getSettings();
+    }
+
+    @DeleteMapping("/capture/targets")
+    public Map<String, Object> clearCaptureTargets() {
+        DispatcherCapture.clearTargets();
+        return DispatcherCapture.getSettings();
+    }
+
+    private List<Object> locationToRow(SourceLocation location) {
+        if (location == null) {
+            return null;
+        }
+        return Arrays.asList(
+                location.getFileName(),
+                location.getLineNumber(),
+                location.getOutermostClassName(),
+                location instanceof PropertyLocation propertyLocation ? propertyLocation.getMethodName() : null
+        );
+    }
+
     private Map<String, Object> locationToMap(SourceLocation location) {
         var map = new HashMap<String, Object>();
         map.put("fileName", location.getFileName());
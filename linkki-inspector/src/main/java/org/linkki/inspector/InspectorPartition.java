@@ -0,0 +1,96 @@
+package org.linkki.inspector;
+
+import com.vaadin.flow.component.Component;
+import org.linkki.inspector.code.DeferredLocation;
+import org.linkki.inspector.code.PmoMetaData;
+import org.linkki.inspector.code.SourceLocation;
+
+import java.util.List;
+
+/**
+ * Inspector state of a single UI.
+ * <p>
+ * Partitions are created lazily on the first registration from within a UI and are dropped as a whole when
+ * the UI is detached or its session is destroyed (see {@link InspectorPartitions}).
+ */
+public class InspectorPartition {
+
+    private final int uiId;
+
+    // Where PMOs (and other tracked objects) were instantiated
+    private final WeakIdentityRegistry<Object, SourceLocation> instantiationLocations = new WeakIdentityRegistry<>("instantiationLocations");
+
+    // Component -> location used to register it
+    private final WeakIdentityRegistry<Component, DeferredLocation<? extends SourceLocation>> componentLocations = new WeakIdentityRegistry<>("componentLocations");
+
+    // data-component-id -> Component
+    private final WeakValueRegistry<String, Component> componentsById = new WeakValueRegistry<>("componentsById");
+
+    // Component -> PMO metadata
+    private final WeakIdentityRegistry<Component, PmoMetaData> componentMetaData = new WeakIdentityRegistry<>("componentMetaData");
+
+    // PMO instance -> metadata
+    private final WeakIdentityRegistry<Object, PmoMetaData> pmoMetaData = new WeakIdentityRegistry<>("pmoMetaData");
+
+    // Hierarchy nodes of this UI, rebuilt only for changed subtrees
+    private final LiveHierarchy hierarchy = new LiveHierarchy();
+
+    // Last dispatcher chain analyses per aspect of each PMO property, capped over all partitions
+    private final DispatcherHistoryStore dispatcherHistory = new DispatcherHistoryStore(
+            DispatcherHistoryStore.DEFAULT_DEPTH, DispatcherHistoryStore.Budget.GLOBAL);
+
+    InspectorPartition(int uiId) {
+        this.uiId = uiId;
+    }
+
+    public int getUiId() {
+        return uiId;
+    }
+
+    WeakIdentityRegistry<Object, SourceLocation> instantiationLocations() {
+        return instantiationLocations;
+    }
+
+    WeakIdentityRegistry<Component, DeferredLocation<? extends SourceLocation>> componentLocations() {
+        return componentLocations;
+    }
+
+    WeakValueRegistry<String, Component> componentsById() {
+        return componentsById;
+    }
+
+    WeakIdentityRegistry<Component, PmoMetaData> componentMetaData() {
+        return componentMetaData;
+    }
+
+    WeakIdentityRegistry<Object, PmoMetaData> pmoMetaData() {
+        return pmoMetaData;
+    }
+
+    public LiveHierarchy hierarchy() {
+        return hierarchy;
+    }
+
+    DispatcherHistoryStore dispatcherHistory() {
+        return dispatcherHistory;
+    }
+
+    /**
+     * Gives the shared budgets back when the partition is dropped.
+     */
+    void release() {
+        dispatcherHistory.clear();
+    }
+
+    List<RegistryStatistics> getStatistics() {
+        return List.of(
+                instantiationLocations.getStatistics(),
+                componentLocations.getStatistics(),
+                componentsById.getStatistics(),
+                componentMetaData.getStatistics(),
+                pmoMetaData.getStatistics(),
+                hierarchy.getStatistics(),
+                dispatcherHistory.getStatistics()
+        );
+    }
+}
@@ -0,0 +1,186 @@
+package org.linkki.inspector;
+
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.UI;
+import com.vaadin.flow.server.VaadinSession;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Routes inspector state to the partition of the current {@link VaadinSession} and {@link UI}.
+ * <p>
+ * Registrations always go to the partition of the current UI. Lookups search all UI partitions of the
+ * current session: either the one bound by {@link #withSessionOf(HttpServletRequest, Supplier)} (REST
+ * endpoint) or {@link VaadinSession#getCurrent()} (UI thread).
+ */
+public class InspectorPartitions {
+
+    // Weak keys, so that a session that is never destroyed properly (e.g. after failover) does not leak
+    private static final WeakIdentityRegistry<VaadinSession, InspectorSession> sessions = new WeakIdentityRegistry<>("sessions");
+
+    // Sessions bound to the current (non-Vaadin) request thread
+    private static final ThreadLocal<List<InspectorSession>> boundSessions = new ThreadLocal<>();
+
+    private static final LongAdder droppedSessions = new LongAdder();
+    private static final LongAdder droppedPartitions = new LongAdder();
+    private static final long createdAt = System.nanoTime();
+
+    private InspectorPartitions() {
+        // Utility class
+    }
+
+    /**
+     * Returns the partition of the current UI, creating it if necessary, or {@code null} if there is no
+     * current session.
+     */
+    public static InspectorPartition current() {
+        var session = VaadinSession.getCurrent();
+        if (session == null) {
+            return null;
+        }
+        var ui = UI.getCurrent();
+        return sessions.computeIfAbsent(session, InspectorSession::new)
+                .getOrCreatePartition(ui != null ? ui.getUIId() : InspectorSession.NO_UI);
+    }
+
+    /**
+     * Applies the lookup to every partition of the current session and returns the first non-null result.
+     */
+    public static <T> Optional<T> lookup(Function<InspectorPartition, T> lookup) {
+        for (var session : currentSessions()) {
+            for (var partition : session.getPartitions()) {
+                var result = lookup.apply(partition);
+                if (result != null) {
+                    return Optional.of(result);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * The Vaadin session of the current inspector sessions the component is registered in, or {@code null}.
+     * Only reads the inspector registries, so it may be called without holding any session lock.
+     */
+    public static VaadinSession findVaadinSession(Component component) {
+        for (var session : currentSessions()) {
+            for (var partition : session.getPartitions()) {
+                if (partition.componentMetaData().containsKey(component)) {
+                    return session.getVaadinSession();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Runs the action with the Vaadin sessions of the given HTTP request bound as current inspector sessions.
+     */
+    public static <T> T withSessionOf(HttpServletRequest request, Supplier<T> action) {
+        var previous = boundSessions.get();
+        boundSessions.set(findSessions(request));
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                boundSessions.remove();
+            } else {
+                boundSessions.set(previous);
+            }
+        }
+    }
+
+    public static void dropSession(VaadinSession session) {
+        var removed = sessions.remove(session);
+        if (removed != null) {
+            droppedSessions.increment();
+            droppedPartitions.add(removed.getPartitions().size());
+            removed.getPartitions().forEach(InspectorPartition::release);
+        }
+    }
+
+    public static void dropUi(VaadinSession session, int uiId) {
+        var inspectorSession = sessions.get(session);
+        if (inspectorSession != null && inspectorSession.dropPartition(uiId)) {
+            droppedPartitions.increment();
+        }
+    }
+
+    /**
+     * Registry statistics summed up over all live partitions, plus the number of live sessions and UI
+     * partitions and how many of them have been dropped.
+     */
+    public static List<RegistryStatistics> getStatistics() {
+        var totals = new LinkedHashMap<String, RegistryStatistics>();
+        var sessionCount = new int[1];
+        var partitionCount = new int[1];
+
+        sessions.forEach((vaadinSession, session) -> {
+            sessionCount[0]++;
+            for (var partition : session.getPartitions()) {
+                partitionCount[0]++;
+                partition.getStatistics().forEach(stats -> totals.merge(stats.name(), stats, InspectorPartitions::sum));
+            }
+        });
+
+        var result = new ArrayList<RegistryStatistics>();
+        result.add(RegistryStatistics.of("sessions", sessionCount[0], droppedSessions.sum(), createdAt));
+        result.add(RegistryStatistics.of("uiPartitions", partitionCount[0], droppedPartitions.sum(), createdAt));
+        result.addAll(totals.values());
+        return result;
+    }
+
+    /**
+     * The sum of the given count over all live partitions.
+     */
+    static long countOverPartitions(ToLongFunction<InspectorPartition> count) {
+        var total = new long[1];
+        sessions.forEach((vaadinSession, session) -> {
+            for (var partition : session.getPartitions()) {
+                total[0] += count.applyAsLong(partition);
+            }
+        });
+        return total[0];
+    }
+
+    private static RegistryStatistics sum(RegistryStatistics a, RegistryStatistics b) {
+        return new RegistryStatistics(a.name(), a.entries() + b.entries(), a.evictions() + b.evictions(),
+                a.evictionsPerSecond() + b.evictionsPerSecond());
+    }
+
+    private static List<InspectorSession> currentSessions() {
+        var bound = boundSessions.get();
+        if (bound != null) {
+            return bound;
+        }
+        var session = VaadinSession.getCurrent();
+        if (session == null) {
+            return List.of();
+        }
+        var inspectorSession = sessions.get(session);
+        return inspectorSession != null ? List.of(inspectorSession) : List.of();
+    }
+
+    private static List<InspectorSession> findSessions(HttpServletRequest request) {
+        var httpSession = request.getSession(false);
+        if (httpSession == null) {
+            return List.of();
+        }
+        var result = new ArrayList<InspectorSession>();
+        for (var vaadinSession : VaadinSession.getAllSessions(httpSession)) {
+            var inspectorSession = sessions.get(vaadinSession);
+            if (inspectorSession != null) {
+                result.add(inspectorSession);
+            }
+        }
+        return result;
+    }
+}
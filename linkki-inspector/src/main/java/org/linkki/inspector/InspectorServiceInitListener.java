@@ -9,8 +9,21 @@ public class InspectorServiceInitListener implements VaadinServiceInitListener {
     @Override
     public void serviceInit(ServiceInitEvent event) {
         System.out.println("InspectorServiceInitListener initialized");
+        // A new service may run reloaded application classes with the same names
+        CallSiteCapture.clear();
+        SourceCodeParser.clearCache();
+        // Round-trip boundaries for the redundant pull detection
+        event.addVaadinRequestInterceptor(new PullRoundTripInterceptor());
+        // Inspector state is partitioned per session and UI; release it as soon as either goes away
+        event.getSource().addSessionDestroyListener(destroyEvent -> {
+            InspectorPartitions.dropSession(destroyEvent.getSession());
+            LinkkiInspectorUIInjector.release(destroyEvent.getSession());
+        });
+
         event.getSource().addUIInitListener(uiEvent -> {
             var ui = uiEvent.getUI();
+            var session = ui.getSession();
+            ui.addDetachListener(detachEvent -> InspectorPartitions.dropUi(session, ui.getUIId()));
 
             // Auto-enable in development mode
             if (isDevelopmentMode()) {
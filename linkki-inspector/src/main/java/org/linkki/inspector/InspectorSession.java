@@ -0,0 +1,52 @@
+package org.linkki.inspector;
+
+import com.vaadin.flow.server.VaadinSession;
+
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inspector state of a single {@link com.vaadin.flow.server.VaadinSession}, split into one
+ * {@link InspectorPartition} per UI.
+ */
+public class InspectorSession {
+
+    /**
+     * Partition for registrations that happen while no UI is current (e.g. PMOs created during session init).
+     */
+    static final int NO_UI = -1;
+
+    private final Map<Integer, InspectorPartition> partitions = new ConcurrentHashMap<>();
+
+    // Weak, because the session is the key of this inspector session in InspectorPartitions
+    private final WeakReference<VaadinSession> vaadinSession;
+
+    InspectorSession(VaadinSession vaadinSession) {
+        this.vaadinSession = new WeakReference<>(vaadinSession);
+    }
+
+    /**
+     * The Vaadin session, or {@code null} if it has been collected.
+     */
+    VaadinSession getVaadinSession() {
+        return vaadinSession.get();
+    }
+
+    InspectorPartition getOrCreatePartition(int uiId) {
+        return partitions.computeIfAbsent(uiId, InspectorPartition::new);
+    }
+
+    boolean dropPartition(int uiId) {
+        var removed = partitions.remove(uiId);
+        if (removed != null) {
+            removed.release();
+        }
+        return removed != null;
+    }
+
+    Collection<InspectorPartition> getPartitions() {
+        return partitions.values();
+    }
+}
@@ -0,0 +1,71 @@
+package org.linkki.inspector;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MutableCallSite;
+
+/**
+ * JVM-wide switch checked first by all inspector advice.
+ * <p>
+ * The state is the constant target of a {@link MutableCallSite}, invoked through a {@code static final} handle,
+ * so the JIT compiles {@link #isOn()} to a constant. While the inspector is off, the advice woven into every
+ * component constructor and binding returns before doing any work and is inlined away; switching on
+ * deoptimizes the compiled callers once.
+ * <p>
+ * {@code -Dlinkki.inspector.enabled=true} switches the inspector on at startup, {@code false} keeps it off even
+ * if a UI enables it. Without the property, it starts off until {@link LinkkiInspectorUIInjector#enable}
+ * switches it on, and it is switched off again when the last session that enabled it disables the inspector
+ * or ends. Which sessions are inspected is still decided per session.
+ */
+public final class InspectorSwitch {
+
+    private static final String PROPERTY = "linkki.inspector.enabled";
+
+    private static final MutableCallSite STATE = new MutableCallSite(constant(initialState()));
+    private static final MethodHandle IS_ON = STATE.dynamicInvoker();
+
+    private InspectorSwitch() {
+        // Utility class
+    }
+
+    public static boolean isOn() {
+        try {
+            return (boolean) IS_ON.invokeExact();
+        } catch (Throwable e) {
+            // The target is a constant and cannot fail
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Switches the inspector on, unless it is disabled with {@code -Dlinkki.inspector.enabled=false}.
+     */
+    public static void enable() {
+        if (!"false".equals(System.getProperty(PROPERTY))) {
+            set(true);
+        }
+    }
+
+    /**
+     * Switches the inspector off for all sessions. Components created meanwhile are not registered.
+     */
+    public static void disable() {
+        set(false);
+    }
+
+    private static synchronized void set(boolean on) {
+        if (isOn() != on) {
+            STATE.setTarget(constant(on));
+            MutableCallSite.syncAll(new MutableCallSite[]{STATE});
+        }
+    }
+
+    private static boolean initialState() {
+        // Production mode is usually configured for the servlet, not the JVM, so it cannot be relied on here
+        return Boolean.getBoolean(PROPERTY);
+    }
+
+    private static MethodHandle constant(boolean on) {
+        return MethodHandles.constant(boolean.class, on);
+    }
+}
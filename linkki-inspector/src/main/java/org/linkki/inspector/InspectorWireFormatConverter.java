@@ -0,0 +1,202 @@
+package org.linkki.inspector;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compact binary encoding of the inspector responses, chosen by requests that accept
+ * {@code application/x-linkki-inspector}. Other clients keep receiving JSON.
+ * <p>
+ * A response is serialized to the same tree as its JSON, but every distinct string (keys, class, file and
+ * property names) is stored once in a table, most frequent first, and referenced by index. Integers and
+ * lengths are unsigned LEB128 varints, signed integers are zigzag-encoded:
+ * <pre>
+ * version, stringCount, (byteLength, UTF-8 bytes)*, value
+ * value = NULL | FALSE | TRUE | INT zigzag | DOUBLE 8 bytes big-endian | STRING index
+ *       | ARRAY length value* | OBJECT size (keyIndex value)*
+ * </pre>
+ * The body is gzipped if the request accepts it. The decoder is {@code InspectorAPI.decodeWireFormat}.
+ * <p>
+ * The converter is added to the application's converters, but only writes responses of
+ * {@link InspectorEndpoint}; other controllers never produce this media type.
+ */
+public class InspectorWireFormatConverter extends AbstractHttpMessageConverter<Object> {
+
+    public static final MediaType MEDIA_TYPE = new MediaType("application", "x-linkki-inspector");
+
+    static final int VERSION = 1;
+
+    static final int NULL = 0;
+    static final int FALSE = 1;
+    static final int TRUE = 2;
+    static final int INT = 3;
+    static final int DOUBLE = 4;
+    static final int STRING = 5;
+    static final int ARRAY = 6;
+    static final int OBJECT = 7;
+
+    private final ObjectMapper objectMapper;
+
+    public InspectorWireFormatConverter(ObjectMapper objectMapper) {
+        super(MEDIA_TYPE);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        // The response types of InspectorEndpoint
+        return Map.class.isAssignableFrom(clazz) || List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return isInspectorRequest() && super.canWrite(clazz, mediaType);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        // Requests are sent as JSON
+        return false;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Reading " + MEDIA_TYPE + " is not supported", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+        var bytes = encode(objectMapper.valueToTree(value));
+        outputMessage.getHeaders().add("Vary", "Accept-Encoding");
+        if (acceptsGzip()) {
+            outputMessage.getHeaders().set("Content-Encoding", "gzip");
+            try (var gzip = new GZIPOutputStream(outputMessage.getBody())) {
+                gzip.write(bytes);
+            }
+        } else {
+            outputMessage.getHeaders().setContentLength(bytes.length);
+            outputMessage.getBody().write(bytes);
+        }
+    }
+
+    private static boolean isInspectorRequest() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            var handler = attributes.getRequest().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+            return handler instanceof HandlerMethod handlerMethod
+                    && InspectorEndpoint.class.isAssignableFrom(handlerMethod.getBeanType());
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            var acceptEncoding = attributes.getRequest().getHeader("Accept-Encoding");
+            return acceptEncoding != null && acceptEncoding.contains("gzip");
+        }
+        return false;
+    }
+
+    static byte[] encode(JsonNode tree) throws IOException {
+        var counts = new HashMap<String, Integer>();
+        countStrings(tree, counts);
+        var strings = new ArrayList<>(counts.keySet());
+        // Frequent strings get the shortest indexes
+        strings.sort(Comparator.comparing(counts::get).reversed());
+        var indexes = new HashMap<String, Integer>(strings.size() * 2);
+        for (var i = 0; i < strings.size(); i++) {
+            indexes.put(strings.get(i), i);
+        }
+
+        var out = new ByteArrayOutputStream();
+        writeVarint(out, VERSION);
+        writeVarint(out, strings.size());
+        for (var string : strings) {
+            var utf8 = string.getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, utf8.length);
+            out.write(utf8);
+        }
+        writeValue(out, tree, indexes);
+        return out.toByteArray();
+    }
+
+    private static void countStrings(JsonNode node, Map<String, Integer> counts) {
+        if (node.isObject()) {
+            node.fields().forEachRemaining(field -> {
+                counts.merge(field.getKey(), 1, Integer::sum);
+                countStrings(field.getValue(), counts);
+            });
+        } else if (node.isArray()) {
+            node.forEach(element -> countStrings(element, counts));
+        } else if (isString(node)) {
+            counts.merge(node.asText(), 1, Integer::sum);
+        }
+    }
+
+    private static void writeValue(OutputStream out, JsonNode node, Map<String, Integer> indexes) throws IOException {
+        if (node == null || node.isNull() || node.isMissingNode()) {
+            out.write(NULL);
+        } else if (node.isBoolean()) {
+            out.write(node.booleanValue() ? TRUE : FALSE);
+        } else if (node.isIntegralNumber() && node.canConvertToLong()) {
+            out.write(INT);
+            var value = node.longValue();
+            writeVarint(out, (value << 1) ^ (value >> 63));
+        } else if (node.isNumber()) {
+            out.write(DOUBLE);
+            var bits = Double.doubleToLongBits(node.doubleValue());
+            for (var shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) (bits >>> shift));
+            }
+        } else if (node.isArray()) {
+            out.write(ARRAY);
+            writeVarint(out, node.size());
+            for (var element : node) {
+                writeValue(out, element, indexes);
+            }
+        } else if (node.isObject()) {
+            out.write(OBJECT);
+            writeVarint(out, node.size());
+            for (var fields = node.fields(); fields.hasNext(); ) {
+                var field = fields.next();
+                writeVarint(out, indexes.get(field.getKey()));
+                writeValue(out, field.getValue(), indexes);
+            }
+        } else {
+            out.write(STRING);
+            writeVarint(out, indexes.get(node.asText()));
+        }
+    }
+
+    private static boolean isString(JsonNode node) {
+        return !node.isNull() && !node.isMissingNode() && !node.isBoolean() && !node.isNumber()
+                && !node.isContainerNode();
+    }
+
+    private static void writeVarint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
@@ -0,0 +1,105 @@
+package org.linkki.inspector;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations with logarithmic buckets.
+ * <p>
+ * Each power of two is split into four sub-buckets, so percentiles are accurate to about 12%, at a fixed
+ * size of 256 counters regardless of how many values are recorded.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder totalAllocatedBytes = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * @param nanos          measured duration
+     * @param allocatedBytes bytes allocated during the measurement, or a negative value if unknown
+     */
+    public void record(long nanos, long allocatedBytes) {
+        var value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        totalNanos.add(value);
+        if (allocatedBytes > 0) {
+            totalAllocatedBytes.add(allocatedBytes);
+        }
+        maxNanos.accumulateAndGet(value, Math::max);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public double getMeanNanos() {
+        var n = count.sum();
+        return n == 0 ? 0 : (double) totalNanos.sum() / n;
+    }
+
+    public double getMeanAllocatedBytes() {
+        var n = count.sum();
+        return n == 0 ? 0 : (double) totalAllocatedBytes.sum() / n;
+    }
+
+    /**
+     * Approximate value below which the given fraction (0..1) of all recorded values lie.
+     */
+    public long getPercentile(double fraction) {
+        var snapshot = new long[BUCKETS];
+        var total = 0L;
+        for (var i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        var rank = (long) Math.ceil(fraction * total);
+        var seen = 0L;
+        for (var i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(bucketMidpoint(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        var msb = 63 - Long.numberOfLeadingZeros(value);
+        var sub = (int) (value >>> (msb - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (msb - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long bucketMidpoint(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        var msb = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        var sub = bucket % SUB_BUCKETS;
+        var width = 1L << (msb - SUB_BUCKET_BITS);
+        var lower = (1L << msb) | (sub * width);
+        return lower + width / 2;
+    }
+}
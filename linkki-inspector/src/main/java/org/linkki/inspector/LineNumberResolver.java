@@ -0,0 +1,21 @@
+package org.linkki.inspector;
+
+/**
+ * Strategy to determine declaration line numbers of classes and methods.
+ * <p>
+ * {@link SourceCodeParser#enhanceLocation} asks the configured resolvers in order and uses the first line
+ * number found, see {@link SourceCodeParser#setResolvers}.
+ */
+public interface LineNumberResolver {
+
+    /**
+     * Line of the given method in the given class (binary name), or -1 if unknown.
+     */
+    int findMethodLine(String className, String methodName);
+
+    /**
+     * Line of the declaration of the given class (binary name, inner classes separated by {@code $}), or -1
+     * if unknown.
+     */
+    int findClassLine(String className);
+}
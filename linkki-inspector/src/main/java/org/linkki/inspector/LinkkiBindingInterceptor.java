@@ -2,7 +2,6 @@ package org.linkki.inspector;
 
 import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.grid.Grid;
-import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.After;
 import org.aspectj.lang.annotation.Around;
@@ -12,8 +11,6 @@ import org.linkki.core.binding.descriptor.BindingDescriptor;
 import org.linkki.core.binding.wrapper.ComponentWrapper;
 
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.util.Arrays;
 import java.util.Deque;
 
 /**
@@ -51,11 +48,14 @@ public class LinkkiBindingInterceptor {
 
     // ========== ADVICE ==========
 
-    @After("pmoConstructorCreate()")
-    public void pmoConstructorCreateNew(JoinPoint joinPoint) {
-        Object result = joinPoint.getThis();
-        if (isPmo(result)) {
-            ComponentRegistry.registerInstantiationLocation(result, ComponentRegistry.captureInstantiationLocation(result.getClass()));
+    // Constructor advice binds this() instead of a JoinPoint, so nothing is allocated while switched off
+    @After("pmoConstructorCreate() && this(pmo)")
+    public void pmoConstructorCreateNew(Object pmo) {
+        if (!LinkkiInspectorUIInjector.isEnabled()) {
+            return;
+        }
+        if (isPmo(pmo)) {
+            ComponentRegistry.registerInstantiationLocation(pmo, ComponentRegistry.captureInstantiationLocation(pmo.getClass()));
         }
     }
 
@@ -64,19 +64,19 @@ public class LinkkiBindingInterceptor {
      * This provides a base level of inspection (instantiation location) for everything.
      * If the component is later bound to a PMO (via aroundBind), that registration will overwrite this one.
      */
-    @After("vaadinComponentConstructorCreate()")
-    public void vaadinComponentConstructor(JoinPoint joinPoint) {
+    @After("vaadinComponentConstructorCreate() && this(component)")
+    public void vaadinComponentConstructor(Component component) {
         if (!LinkkiInspectorUIInjector.isEnabled()) {
             return;
         }
-        Object result = joinPoint.getThis();
-        if (result instanceof Component) {
-            ComponentInspector.registerGenericComponent((Component) result);
-        }
+        ComponentInspector.registerGenericComponent(component);
     }
 
     @Around("bindingContextBind()")
     public Object aroundBind(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!InspectorSwitch.isOn()) {
+            return joinPoint.proceed();
+        }
         var result = joinPoint.proceed();
 
         if (!LinkkiInspectorUIInjector.isEnabled()) {
@@ -94,6 +94,9 @@ public class LinkkiBindingInterceptor {
 
     @Around("sectionFactoryCreate()")
     public Object aroundSectionCreation(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!InspectorSwitch.isOn()) {
+            return joinPoint.proceed();
+        }
         var pmo = findPmoInArguments(joinPoint.getArgs());
 
         try {
@@ -149,40 +152,7 @@ public class LinkkiBindingInterceptor {
      */
     private boolean isPmo(Object obj) {
         if (obj == null) return false;
-        return isPmoClass(obj.getClass());
-    }
-
-    private boolean isPmoClass(Class<?> clazz) {
-        if (clazz == null || clazz == Object.class) return false;
-
-        if (Arrays.stream(clazz.getInterfaces())
-                .anyMatch(i -> i.getName().contains("ContainerPmo"))) {
-            return true;
-        }
-
-        if (clazz.isAnnotationPresent(org.linkki.core.ui.layout.annotation.UISection.class)) {
-            return true;
-        }
-
-        for (var method : clazz.getDeclaredMethods()) {
-            if (hasLinkkiAnnotation(method)) {
-                return true;
-            }
-        }
-
-        return isPmoClass(clazz.getSuperclass());
-    }
-
-    private boolean hasLinkkiAnnotation(Method method) {
-        return method.isAnnotationPresent(org.linkki.core.ui.element.annotation.UITextField.class)
-                || method.isAnnotationPresent(org.linkki.core.ui.element.annotation.UIButton.class)
-                || method.isAnnotationPresent(org.linkki.core.ui.element.annotation.UIComboBox.class)
-                || method.isAnnotationPresent(org.linkki.core.ui.element.annotation.UICheckBox.class)
-                || method.isAnnotationPresent(org.linkki.core.ui.element.annotation.UIDateField.class)
-                || method.isAnnotationPresent(org.linkki.core.ui.element.annotation.UIIntegerField.class)
-                || method.isAnnotationPresent(org.linkki.core.ui.element.annotation.UIDoubleField.class)
-                || method.isAnnotationPresent(org.linkki.core.ui.element.annotation.UITextArea.class)
-                || method.isAnnotationPresent(org.linkki.core.ui.element.annotation.UILabel.class);
+        return PmoClassification.isPmoClass(obj.getClass());
     }
 
     @SuppressWarnings("unchecked")
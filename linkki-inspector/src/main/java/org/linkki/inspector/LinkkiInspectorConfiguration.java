@@ -1,9 +1,15 @@
 package org.linkki.inspector;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
 import org.springframework.context.annotation.EnableLoadTimeWeaving;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
 
 /**
  * Configuration class for Spring-based applications
@@ -11,10 +17,24 @@ import org.springframework.context.annotation.EnableLoadTimeWeaving;
 @Configuration
 @EnableAspectJAutoProxy(proxyTargetClass = true)
 @EnableLoadTimeWeaving(aspectjWeaving = EnableLoadTimeWeaving.AspectJWeaving.ENABLED)
-public class LinkkiInspectorConfiguration {
+public class LinkkiInspectorConfiguration implements WebMvcConfigurer {
 
     @Bean
     public LinkkiBindingInterceptor linkkiBindingInterceptor() {
         return new LinkkiBindingInterceptor();
     }
-}
\ No newline at end of file
+
+    /**
+     * Adds the compact encoding of {@link InspectorWireFormatConverter}, using the application's Jackson
+     * configuration.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        var objectMapper = converters.stream()
+                .filter(MappingJackson2HttpMessageConverter.class::isInstance)
+                .map(c -> ((MappingJackson2HttpMessageConverter) c).getObjectMapper())
+                .findFirst()
+                .orElseGet(ObjectMapper::new);
+        converters.add(new InspectorWireFormatConverter(objectMapper));
+    }
+}
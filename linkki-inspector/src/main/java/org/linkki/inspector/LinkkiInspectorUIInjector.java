@@ -1,5 +1,6 @@
 package org.linkki.inspector;
 
+import com.vaadin.flow.component.ClientCallable;
 import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.Tag;
 import com.vaadin.flow.component.UI;
@@ -9,32 +10,75 @@ import com.vaadin.flow.server.VaadinSession;
 import org.apache.logging.log4j.util.Strings;
 
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 public class LinkkiInspectorUIInjector implements Serializable {
 
     private static final String INSPECTOR_ENABLED_KEY = "inspector.enabled";
     private static final int INSPECTOR_PORT = 63342;
 
+    // The JVM-wide switch is turned off again when the last of these disables the inspector or ends
+    private static final Set<VaadinSession> ENABLED_SESSIONS = Collections.newSetFromMap(new WeakHashMap<>());
+
     // 1. Define a resource loader component to trigger the Vite bundle inclusion
     @Tag("inspector-loader")
     @JsModule("./inspector/component-inspector.js") // References frontend/inspector/component-inspector.js
     public static class InspectorLoader extends Component {
         // This component doesn't need to render anything visual;
         // its presence ensures the JS is loaded.
+
+        /**
+         * Called by the overlay to start or stop receiving the hierarchy changes of this UI.
+         */
+        @ClientCallable
+        public void subscribeHierarchyDeltas(boolean subscribe) {
+            var partition = InspectorPartitions.current();
+            if (partition != null) {
+                partition.hierarchy().deltas().setSubscribed(subscribe);
+            }
+        }
     }
 
     public static void enable(UI ui) {
-        VaadinSession.getCurrent().setAttribute(INSPECTOR_ENABLED_KEY, true);
+        var session = VaadinSession.getCurrent();
+        synchronized (ENABLED_SESSIONS) {
+            ENABLED_SESSIONS.add(session);
+            InspectorSwitch.enable();
+        }
+        session.setAttribute(INSPECTOR_ENABLED_KEY, true);
         injectInspector(ui);
     }
 
     public static void disable() {
-        VaadinSession.getCurrent().setAttribute(INSPECTOR_ENABLED_KEY, false);
+        var session = VaadinSession.getCurrent();
+        session.setAttribute(INSPECTOR_ENABLED_KEY, false);
+        release(session);
         // Optional: You could reload the page or remove the UI elements via JS if needed
     }
 
+    /**
+     * Forgets the session, and switches the inspector off via {@link InspectorSwitch#disable()} if no other
+     * session has it enabled.
+     */
+    static void release(VaadinSession session) {
+        synchronized (ENABLED_SESSIONS) {
+            if (ENABLED_SESSIONS.remove(session) && ENABLED_SESSIONS.isEmpty()) {
+                InspectorSwitch.disable();
+            }
+        }
+    }
+
     public static boolean isEnabled() {
-        var enabled = (Boolean) VaadinSession.getCurrent().getAttribute(INSPECTOR_ENABLED_KEY);
+        if (!InspectorSwitch.isOn()) {
+            return false;
+        }
+        var session = VaadinSession.getCurrent();
+        if (session == null) {
+            return false;
+        }
+        var enabled = (Boolean) session.getAttribute(INSPECTOR_ENABLED_KEY);
         return enabled != null && enabled;
     }
 
@@ -0,0 +1,227 @@
+package org.linkki.inspector;
+
+import com.vaadin.flow.component.AttachEvent;
+import com.vaadin.flow.component.Component;
+import com.vaadin.flow.component.ComponentEvent;
+import com.vaadin.flow.component.ComponentUtil;
+import com.vaadin.flow.component.DetachEvent;
+import com.vaadin.flow.dom.Element;
+import com.vaadin.flow.internal.StateNode;
+import org.linkki.inspector.code.PmoMetaData.HierarchyNode;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Live hierarchy model of one UI.
+ * <p>
+ * The nodes built by {@link HierarchyScanner} are kept per element and served from memory until the subtree
+ * below them changes. Every registered component gets an attach and a detach listener (installed once, the
+ * component data {@code LiveHierarchy} marks tracked components); when a component is attached, detached or
+ * (re-)registered, the cached nodes of its element and all its ancestors are dropped, so the next scan only
+ * rebuilds these dirty nodes and reuses all untouched subtrees. The same events feed the {@link HierarchyDeltas}
+ * pushed to the overlay.
+ */
+public final class LiveHierarchy {
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    private final WeakIdentityRegistry<StateNode, HierarchyNode> nodes = new WeakIdentityRegistry<>("hierarchyNodes");
+    private final HierarchyDeltas deltas = new HierarchyDeltas();
+
+    // Incremented on every invalidation, so that a scan racing with a change does not cache stale nodes
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Tracks structural changes below the given component from now on and drops the cached nodes it affects.
+     */
+    static void track(Component component, LiveHierarchy hierarchy) {
+        if (ComponentUtil.getData(component, LiveHierarchy.class) == null) {
+            component.addAttachListener(LiveHierarchy::onStructureChange);
+            component.addDetachListener(LiveHierarchy::onStructureChange);
+        }
+        ComponentUtil.setData(component, LiveHierarchy.class, hierarchy);
+        hierarchy.invalidate(component.getElement());
+    }
+
+    private static void onStructureChange(ComponentEvent<?> event) {
+        // Detach listeners run before the element is removed from its parent, so the ancestors are still known
+        var component = event.getSource();
+        var hierarchy = ComponentUtil.getData(component, LiveHierarchy.class);
+        if (hierarchy == null) {
+            return;
+        }
+        hierarchy.invalidate(component.getElement());
+        if (event instanceof AttachEvent attachEvent) {
+            hierarchy.deltas.added(component, attachEvent.getUI());
+        } else if (event instanceof DetachEvent detachEvent) {
+            hierarchy.deltas.removed(component, detachEvent.getUI());
+        }
+    }
+
+    /**
+     * Changes of this UI pushed to a subscribed overlay.
+     */
+    public HierarchyDeltas deltas() {
+        return deltas;
+    }
+
+    /**
+     * Marks the given element and all its ancestors dirty.
+     */
+    public void invalidate(Element element) {
+        generation.incrementAndGet();
+        for (var current = element; current != null; current = current.getParent()) {
+            nodes.remove(current.getNode());
+        }
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        nodes.clear();
+    }
+
+    /**
+     * Starts a scan that reuses and fills this model.
+     */
+    public Scan scan() {
+        return scan(ScanBudget.unlimited());
+    }
+
+    /**
+     * Starts a scan that reuses and fills this model and stops building nodes when the budget is exhausted.
+     * Nodes completed before that are kept, so repeating the scan continues where it stopped.
+     */
+    public Scan scan(ScanBudget budget) {
+        return new Scan(this, generation.get(), budget);
+    }
+
+    RegistryStatistics getStatistics() {
+        return nodes.getStatistics();
+    }
+
+    /**
+     * Nodes cached, served from memory (hits) and rebuilt from the element tree (misses) over all UIs.
+     */
+    public static CacheStatistics getCacheStatistics() {
+        var entries = InspectorPartitions.countOverPartitions(p -> p.hierarchy().nodes.size());
+        return CacheStatistics.of("liveHierarchy", entries, hits.sum(), misses.sum());
+    }
+
+    /**
+     * One pass of {@link HierarchyScanner} over the element tree.
+     */
+    public static final class Scan {
+
+        private final LiveHierarchy hierarchy;
+        private final long generation;
+        private final ScanBudget budget;
+        private final int maxDepth;
+
+        // Nesting of the node being built and number of nodes whose children were left out at the depth limit
+        private int level;
+        private int cuts;
+
+        private Scan(LiveHierarchy hierarchy, long generation, ScanBudget budget) {
+            this(hierarchy, generation, budget, Integer.MAX_VALUE);
+        }
+
+        private Scan(LiveHierarchy hierarchy, long generation, ScanBudget budget, int maxDepth) {
+            this.hierarchy = hierarchy;
+            this.generation = generation;
+            this.budget = budget;
+            this.maxDepth = maxDepth;
+        }
+
+        /**
+         * A scan that builds every node from the element tree.
+         */
+        public static Scan uncached() {
+            return uncached(ScanBudget.unlimited());
+        }
+
+        public static Scan uncached(ScanBudget budget) {
+            return new Scan(null, 0, budget);
+        }
+
+        public ScanBudget getBudget() {
+            return budget;
+        }
+
+        /**
+         * This scan, but only building the children of nodes down to {@code depth} levels below the first
+         * node. Nodes at the limit are built without their children; they are counted instead (see
+         * {@link HierarchyNode#childCount}) and such nodes are not cached.
+         */
+        public Scan limitedTo(int depth) {
+            return new Scan(hierarchy, generation, budget, Math.max(0, depth));
+        }
+
+        /**
+         * This scan without a depth limit.
+         */
+        public Scan unlimited() {
+            return new Scan(hierarchy, generation, budget);
+        }
+
+        /**
+         * Whether the node being built is at the depth limit, so its children must not be built.
+         */
+        boolean atDepthLimit() {
+            return atDepthLimit(0);
+        }
+
+        /**
+         * Whether the nodes {@code levels} below the node being built are at the depth limit.
+         */
+        boolean atDepthLimit(int levels) {
+            return level + levels > maxDepth;
+        }
+
+        /**
+         * Records that the children of the node being built were left out at the depth limit.
+         */
+        void cut() {
+            cuts++;
+        }
+
+        /**
+         * The cached node of the element, or the node built by the builder if the element is dirty. Returns
+         * {@code null} if the budget is exhausted; nodes whose build exhausted it are marked truncated and are
+         * not cached, nor are nodes with descendants left out at the depth limit.
+         */
+        HierarchyNode node(Element element, Function<Element, HierarchyNode> builder) {
+            var key = hierarchy != null ? element.getNode() : null;
+            if (hierarchy != null) {
+                var cached = hierarchy.nodes.get(key);
+                if (cached != null) {
+                    hits.increment();
+                    return cached;
+                }
+            }
+            if (!budget.tryVisit()) {
+                return null;
+            }
+            var cutsBefore = cuts;
+            HierarchyNode node;
+            level++;
+            try {
+                node = builder.apply(element);
+            } finally {
+                level--;
+            }
+            if (node != null && budget.isExhausted()) {
+                node.truncated = true;
+            } else if (hierarchy != null) {
+                misses.increment();
+                // Only complete subtrees are cached
+                if (node != null && cuts == cutsBefore && hierarchy.generation.get() == generation) {
+                    hierarchy.nodes.put(key, node);
+                }
+            }
+            return node;
+        }
+    }
+}
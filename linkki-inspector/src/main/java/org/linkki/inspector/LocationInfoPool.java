@@ -0,0 +1,55 @@
+package org.linkki.inspector;
+
+import org.linkki.inspector.code.PmoMetaData.LocationInfo;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shared {@link LocationInfo} instances of the hierarchy nodes.
+ * <p>
+ * Repeated PMO classes produce the same class, property and instantiation locations over and over, so nodes
+ * refer to one flyweight per distinct location instead of a copy each. The number of distinct locations is
+ * bounded by the application's source code; beyond {@code -Dlinkki.inspector.maxLocationInfos} (50,000)
+ * new locations are no longer pooled. Pooled instances are shared and must not be modified.
+ */
+public final class LocationInfoPool {
+
+    public static final int MAX_ENTRIES = Integer.getInteger("linkki.inspector.maxLocationInfos", 50_000);
+
+    private static final Map<Key, LocationInfo> POOL = new ConcurrentHashMap<>();
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    private LocationInfoPool() {
+        // Utility class
+    }
+
+    public static LocationInfo intern(String fileName, int lineNumber, String className, String methodName,
+            String outermostClassName) {
+        var key = new Key(fileName, lineNumber, className, methodName, outermostClassName);
+        var location = POOL.get(key);
+        if (location != null) {
+            hits.increment();
+            return location;
+        }
+        misses.increment();
+        location = new LocationInfo(fileName, lineNumber, className, methodName);
+        location.outermostClassName = outermostClassName;
+        if (POOL.size() >= MAX_ENTRIES) {
+            return location;
+        }
+        var existing = POOL.putIfAbsent(key, location);
+        return existing != null ? existing : location;
+    }
+
+    public static CacheStatistics getStatistics() {
+        return CacheStatistics.of("locationInfos", POOL.size(), hits.sum(), misses.sum());
+    }
+
+    private record Key(String fileName, int lineNumber, String className, String methodName,
+                       String outermostClassName) {
+    }
+}
@@ -0,0 +1,190 @@
+package org.linkki.inspector;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Experimental "what-if" cache in front of {@code PropertyDispatcher.pull} for selected aspects.
+ * <p>
+ * The first pull of a PMO property's aspect within a round-trip is cached. Repeat pulls in the same
+ * round-trip still execute the real chain, but are measured as if they had been served from the cache:
+ * their time is reported as CPU that memoizing the aspect would save. If the real value differs from the
+ * cached one, a divergence is reported, i.e. memoizing the aspect would change the UI.
+ * <p>
+ * In {@link Mode#SHADOW} the real value is returned, so the application behaves as usual. In
+ * {@link Mode#SERVE} the cached value is returned, which shows how the view would behave with memoized
+ * aspects. Switch via {@code POST /inspector/memoization}.
+ */
+public final class MemoizationAdvisor {
+
+    public enum Mode {
+        OFF,
+        /** Returns the real values, only measures. */
+        SHADOW,
+        /** Returns the cached values for repeat pulls. */
+        SERVE
+    }
+
+    /**
+     * A pull through the real dispatcher chain.
+     */
+    @FunctionalInterface
+    public interface PullInvocation {
+        Object proceed() throws Throwable;
+    }
+
+    private static final int MAX_KEYS = 20_000;
+    private static final int MAX_VALUE_LENGTH = 100;
+    private static final Object NULL_VALUE = new Object();
+
+    private static volatile Mode mode = Mode.OFF;
+    // Aspect names to memoize, empty for all aspects
+    private static volatile Set<String> aspects = Set.of();
+
+    private static final Map<AspectKey, MemoizationStats> statistics = new ConcurrentHashMap<>();
+
+    private MemoizationAdvisor() {
+        // Utility class
+    }
+
+    public static boolean isEnabled() {
+        return mode != Mode.OFF;
+    }
+
+    public static Mode getMode() {
+        return mode;
+    }
+
+    public static void setMode(Mode memoizationMode, Set<String> aspectNames) {
+        aspects = Set.copyOf(aspectNames);
+        mode = memoizationMode;
+    }
+
+    /**
+     * The mode of the given name, ignoring case, or {@code null} if there is no such mode.
+     */
+    static Mode parseMode(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Mode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Executes an outermost pull of the given round-trip through the what-if cache.
+     */
+    static Object pull(PullRoundTrip roundTrip, PullKey key, PullInvocation invocation) throws Throwable {
+        var currentMode = mode;
+        var selectedAspects = aspects;
+        if (currentMode == Mode.OFF || (!selectedAspects.isEmpty() && !selectedAspects.contains(key.aspect))) {
+            return invocation.proceed();
+        }
+
+        var cached = roundTrip.memoizedValues.get(key);
+
+        var start = System.nanoTime();
+        var real = invocation.proceed();
+        var nanos = System.nanoTime() - start;
+
+        var stats = getStats(key);
+        if (cached == null) {
+            roundTrip.memoizedValues.put(key, real != null ? real : NULL_VALUE);
+            if (stats != null) {
+                stats.computedPulls.increment();
+                stats.computedNanos.add(nanos);
+            }
+            return real;
+        }
+
+        var cachedValue = cached == NULL_VALUE ? null : cached;
+        if (stats != null) {
+            stats.cachedPulls.increment();
+            stats.savedNanos.add(nanos);
+            if (!Objects.equals(cachedValue, real)) {
+                stats.divergences.increment();
+                stats.lastDivergence.set(abbreviate(cachedValue) + " -> " + abbreviate(real));
+            }
+        }
+        return currentMode == Mode.SERVE ? cachedValue : real;
+    }
+
+    /**
+     * Aspects by CPU time that memoizing them would save, highest first.
+     */
+    public static Map<String, Object> getReport(int limit) {
+        var totalNanos = new long[2];
+        statistics.values().forEach(stats -> {
+            totalNanos[0] += stats.computedNanos.sum() + stats.savedNanos.sum();
+            totalNanos[1] += stats.savedNanos.sum();
+        });
+
+        var rows = statistics.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> -e.getValue().savedNanos.sum()))
+                .limit(limit)
+                .map(e -> toMap(e.getKey(), e.getValue()))
+                .toList();
+
+        var report = new HashMap<String, Object>();
+        report.put("mode", mode.name());
+        report.put("aspects", aspects);
+        report.put("pullMillis", totalNanos[0] / 1_000_000.0);
+        report.put("savedMillis", totalNanos[1] / 1_000_000.0);
+        report.put("savedRatio", totalNanos[0] == 0 ? 0 : (double) totalNanos[1] / totalNanos[0]);
+        report.put("properties", rows);
+        return report;
+    }
+
+    public static void reset() {
+        statistics.clear();
+    }
+
+    private static MemoizationStats getStats(PullKey key) {
+        var aspectKey = new AspectKey(key.getPmoClassName(), key.property, key.aspect);
+        var stats = statistics.get(aspectKey);
+        if (stats == null && statistics.size() < MAX_KEYS) {
+            stats = statistics.computeIfAbsent(aspectKey, k -> new MemoizationStats());
+        }
+        return stats;
+    }
+
+    private static Map<String, Object> toMap(AspectKey key, MemoizationStats stats) {
+        var map = new HashMap<String, Object>();
+        map.put("pmoClass", key.pmoClass());
+        map.put("property", key.property());
+        map.put("aspect", key.aspect());
+        map.put("computedPulls", stats.computedPulls.sum());
+        map.put("cachedPulls", stats.cachedPulls.sum());
+        map.put("savedMillis", stats.savedNanos.sum() / 1_000_000.0);
+        map.put("divergences", stats.divergences.sum());
+        map.put("lastDivergence", stats.lastDivergence.get());
+        return map;
+    }
+
+    private static String abbreviate(Object value) {
+        var s = String.valueOf(value);
+        return s.length() > MAX_VALUE_LENGTH ? s.substring(0, MAX_VALUE_LENGTH) + "..." : s;
+    }
+
+    private record AspectKey(String pmoClass, String property, String aspect) {
+    }
+
+    private static final class MemoizationStats {
+        private final LongAdder computedPulls = new LongAdder();
+        private final LongAdder computedNanos = new LongAdder();
+        private final LongAdder cachedPulls = new LongAdder();
+        private final LongAdder savedNanos = new LongAdder();
+        private final LongAdder divergences = new LongAdder();
+        private final AtomicReference<String> lastDivergence = new AtomicReference<>();
+    }
+}
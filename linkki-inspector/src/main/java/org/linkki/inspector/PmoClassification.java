@@ -0,0 +1,116 @@
+package org.linkki.inspector;
+
+import org.linkki.core.ui.element.annotation.UIButton;
+import org.linkki.core.ui.element.annotation.UICheckBox;
+import org.linkki.core.ui.element.annotation.UIComboBox;
+import org.linkki.core.ui.element.annotation.UIDateField;
+import org.linkki.core.ui.element.annotation.UIDoubleField;
+import org.linkki.core.ui.element.annotation.UIIntegerField;
+import org.linkki.core.ui.element.annotation.UILabel;
+import org.linkki.core.ui.element.annotation.UITextArea;
+import org.linkki.core.ui.element.annotation.UITextField;
+import org.linkki.core.ui.layout.annotation.UISection;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Whether a class is a PMO and which of its methods are bound by linkki UI annotations.
+ * <p>
+ * Computed once per class and cached in a {@link ClassValue}, so the cache entry lives and dies with the
+ * class itself and does not keep class loaders alive across devtools restarts.
+ */
+public final class PmoClassification {
+
+    private static final Set<Class<? extends Annotation>> LINKKI_ANNOTATIONS = Set.of(
+            UITextField.class,
+            UIButton.class,
+            UIComboBox.class,
+            UICheckBox.class,
+            UIDateField.class,
+            UIIntegerField.class,
+            UIDoubleField.class,
+            UITextArea.class,
+            UILabel.class
+    );
+
+    private static final PmoClassification NONE = new PmoClassification(false, List.of());
+
+    private static final ClassValue<PmoClassification> CLASSIFICATIONS = new ClassValue<>() {
+        @Override
+        protected PmoClassification computeValue(Class<?> type) {
+            return classify(type);
+        }
+    };
+
+    private final boolean pmo;
+    private final List<Method> boundMethods;
+
+    private PmoClassification(boolean pmo, List<Method> boundMethods) {
+        this.pmo = pmo;
+        this.boundMethods = boundMethods;
+    }
+
+    public static PmoClassification of(Class<?> clazz) {
+        return clazz == null ? NONE : CLASSIFICATIONS.get(clazz);
+    }
+
+    public static boolean isPmoClass(Class<?> clazz) {
+        return of(clazz).isPmo();
+    }
+
+    public boolean isPmo() {
+        return pmo;
+    }
+
+    /**
+     * Methods with linkki UI annotations, declared in the class or any of its superclasses.
+     */
+    public List<Method> getBoundMethods() {
+        return boundMethods;
+    }
+
+    private static PmoClassification classify(Class<?> clazz) {
+        if (clazz == Object.class || clazz.isInterface() || clazz.isPrimitive() || clazz.isArray()) {
+            return NONE;
+        }
+
+        var boundMethods = new ArrayList<Method>();
+        for (var method : clazz.getDeclaredMethods()) {
+            if (hasLinkkiAnnotation(method)) {
+                boundMethods.add(method);
+            }
+        }
+
+        var superClassification = of(clazz.getSuperclass());
+        boundMethods.addAll(superClassification.boundMethods);
+
+        var pmo = !boundMethods.isEmpty()
+                || superClassification.pmo
+                || clazz.isAnnotationPresent(UISection.class)
+                || implementsContainerPmo(clazz);
+
+        return pmo ? new PmoClassification(true, List.copyOf(boundMethods)) : NONE;
+    }
+
+    private static boolean implementsContainerPmo(Class<?> clazz) {
+        for (var type : clazz.getInterfaces()) {
+            if (type.getName().contains("ContainerPmo")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasLinkkiAnnotation(Method method) {
+        for (var annotation : method.getDeclaredAnnotations()) {
+            if (LINKKI_ANNOTATIONS.contains(annotation.annotationType())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
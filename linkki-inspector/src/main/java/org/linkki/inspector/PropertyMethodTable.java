@@ -0,0 +1,117 @@
+package org.linkki.inspector;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-class table from PMO property names to the methods that provide them.
+ * <p>
+ * Built once per class from its own, inherited and interface (default) methods and cached in a
+ * {@link ClassValue}. A property {@code foo} resolves to {@code getFoo()}, then {@code isFoo()}, then
+ * {@code foo()}; for the same kind of method, the one declared closest to the class wins.
+ */
+public final class PropertyMethodTable {
+
+    private static final int GETTER = 0;
+    private static final int IS_GETTER = 1;
+    private static final int PLAIN = 2;
+
+    private static final ClassValue<Map<String, Method>> TABLES = new ClassValue<>() {
+        @Override
+        protected Map<String, Method> computeValue(Class<?> type) {
+            tablesBuilt.increment();
+            return build(type);
+        }
+    };
+
+    private static final LongAdder tablesBuilt = new LongAdder();
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    private PropertyMethodTable() {
+        // Utility class
+    }
+
+    /**
+     * The method providing the given property, or {@code null} if the class has none.
+     */
+    public static Method findMethod(Class<?> clazz, String propertyName) {
+        var method = TABLES.get(clazz).get(propertyName);
+        if (method != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return method;
+    }
+
+    public static CacheStatistics getStatistics() {
+        return CacheStatistics.of("propertyMethods", tablesBuilt.sum(), hits.sum(), misses.sum());
+    }
+
+    private static Map<String, Method> build(Class<?> clazz) {
+        var methods = new HashMap<String, Method>();
+        var priorities = new HashMap<String, Integer>();
+
+        for (var type : typeHierarchy(clazz)) {
+            for (var method : type.getDeclaredMethods()) {
+                if (method.getParameterCount() != 0 || method.isSynthetic() || method.isBridge()) {
+                    continue;
+                }
+                var name = method.getName();
+                put(name, method, PLAIN, methods, priorities);
+                if (name.length() > 3 && name.startsWith("get")) {
+                    put(decapitalize(name.substring(3)), method, GETTER, methods, priorities);
+                } else if (name.length() > 2 && name.startsWith("is")) {
+                    put(decapitalize(name.substring(2)), method, IS_GETTER, methods, priorities);
+                }
+            }
+        }
+
+        return methods.isEmpty() ? Map.of() : Collections.unmodifiableMap(methods);
+    }
+
+    private static void put(String property, Method method, int priority, Map<String, Method> methods,
+            Map<String, Integer> priorities) {
+        var existing = priorities.get(property);
+        // Types are visited closest first, so only a better kind of method replaces an existing one
+        if (existing == null || priority < existing) {
+            methods.put(property, method);
+            priorities.put(property, priority);
+        }
+    }
+
+    /**
+     * The class and its superclasses (without {@link Object}), followed by all their interfaces.
+     */
+    private static List<Class<?>> typeHierarchy(Class<?> clazz) {
+        var classes = new ArrayList<Class<?>>();
+        var interfaces = new LinkedHashSet<Class<?>>();
+        var pending = new ArrayDeque<Class<?>>();
+
+        for (var current = clazz; current != null && current != Object.class; current = current.getSuperclass()) {
+            classes.add(current);
+            Collections.addAll(pending, current.getInterfaces());
+        }
+        while (!pending.isEmpty()) {
+            var type = pending.poll();
+            if (interfaces.add(type)) {
+                Collections.addAll(pending, type.getInterfaces());
+            }
+        }
+
+        classes.addAll(interfaces);
+        return classes;
+    }
+
+    private static String decapitalize(String name) {
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+}
@@ -0,0 +1,50 @@
+package org.linkki.inspector;
+
+import org.linkki.core.binding.descriptor.aspect.Aspect;
+import org.linkki.core.binding.dispatcher.PropertyDispatcher;
+
+/**
+ * A pulled aspect of a PMO property: PMO instance (by identity), property and aspect name.
+ */
+final class PullKey {
+
+    final Object pmo;
+    final String property;
+    final String aspect;
+    private final int hash;
+
+    private PullKey(Object pmo, String property, String aspect) {
+        this.pmo = pmo;
+        this.property = property;
+        this.aspect = aspect;
+        this.hash = 31 * (31 * System.identityHashCode(pmo) + property.hashCode()) + aspect.hashCode();
+    }
+
+    /**
+     * The key of a pull through the given dispatcher, or {@code null} if it is not bound to a PMO.
+     */
+    static PullKey of(PropertyDispatcher head, Aspect<?> aspect) {
+        var pmo = head.getBoundObject();
+        if (pmo == null) {
+            return null;
+        }
+        return new PullKey(pmo, String.valueOf(head.getProperty()), DispatcherChainInspector.getAspectName(aspect));
+    }
+
+    String getPmoClassName() {
+        return pmo.getClass().getName();
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof PullKey other
+                && pmo == other.pmo
+                && property.equals(other.property)
+                && aspect.equals(other.aspect);
+    }
+}
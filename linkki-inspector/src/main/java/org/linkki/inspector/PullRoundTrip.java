@@ -0,0 +1,62 @@
+package org.linkki.inspector;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Pull state of one server round-trip, used by the {@link RedundantPullDetector} and the
+ * {@link MemoizationAdvisor}.
+ * <p>
+ * Round-trips are delimited by {@link PullRoundTripInterceptor} and only tracked while one of these tools is
+ * enabled. The state is thread-local and only used by the thread that handles the request.
+ */
+public final class PullRoundTrip {
+
+    private static final ThreadLocal<PullRoundTrip> current = new ThreadLocal<>();
+
+    final Map<PullKey, RedundantPullDetector.PullCounter> pullCounters = new HashMap<>();
+    final Map<PullKey, Object> memoizedValues = new HashMap<>();
+
+    // The dispatchers of a chain intercept each other's pulls, only the outermost pull is tracked
+    private int depth;
+
+    private PullRoundTrip() {
+    }
+
+    /**
+     * The round-trip of the current thread, or {@code null} if no round-trip is tracked.
+     */
+    public static PullRoundTrip current() {
+        return isTracked() ? current.get() : null;
+    }
+
+    static void begin() {
+        if (isTracked()) {
+            current.set(new PullRoundTrip());
+        }
+    }
+
+    static void end() {
+        var roundTrip = current.get();
+        if (roundTrip == null) {
+            return;
+        }
+        current.remove();
+        RedundantPullDetector.merge(roundTrip);
+    }
+
+    private static boolean isTracked() {
+        return RedundantPullDetector.isEnabled() || MemoizationAdvisor.isEnabled();
+    }
+
+    /**
+     * Marks the start of a pull, returns {@code true} if it is the outermost one.
+     */
+    public boolean enterPull() {
+        return depth++ == 0;
+    }
+
+    public void exitPull() {
+        depth--;
+    }
+}
@@ -0,0 +1,30 @@
+package org.linkki.inspector;
+
+import com.vaadin.flow.server.VaadinRequest;
+import com.vaadin.flow.server.VaadinRequestInterceptor;
+import com.vaadin.flow.server.VaadinResponse;
+import com.vaadin.flow.server.VaadinSession;
+
+/**
+ * Delimits server round-trips for the {@link RedundantPullDetector} and the {@link MemoizationAdvisor}.
+ * <p>
+ * Pulls outside of a request (e.g. in {@code UI.access} from background threads) are not counted.
+ */
+public class PullRoundTripInterceptor implements VaadinRequestInterceptor {
+
+    @Override
+    public void requestStart(VaadinRequest request, VaadinResponse response) {
+        PullRoundTrip.begin();
+    }
+
+    @Override
+    public void handleException(VaadinRequest request, VaadinResponse response, VaadinSession vaadinSession,
+            Exception t) {
+        // The round-trip still ends in requestEnd
+    }
+
+    @Override
+    public void requestEnd(VaadinRequest request, VaadinResponse response, VaadinSession session) {
+        PullRoundTrip.end();
+    }
+}
@@ -0,0 +1,141 @@
+package org.linkki.inspector;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how often each (PMO instance, property, aspect) is pulled within one server round-trip and how many
+ * of these pulls returned the same value as the previous one.
+ * <p>
+ * Round-trips are delimited by {@link PullRoundTripInterceptor}. Per round-trip counts are kept thread-locally
+ * and merged into statistics per PMO class, property and aspect when the round-trip ends. The report lists the
+ * aspects that are re-evaluated most often without their value changing, i.e. candidates for static or
+ * memoized aspects. Enable with {@code -Dlinkki.inspector.redundantPulls=true} or
+ * {@code POST /inspector/redundant-pulls?enabled=true}.
+ */
+public final class RedundantPullDetector {
+
+    private static final int MAX_KEYS = 20_000;
+
+    private static volatile boolean enabled = Boolean.getBoolean("linkki.inspector.redundantPulls");
+
+    private static final Map<AspectKey, AspectPullStats> statistics = new ConcurrentHashMap<>();
+    private static final LongAdder roundTrips = new LongAdder();
+
+    private RedundantPullDetector() {
+        // Utility class
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+    }
+
+    /**
+     * Counts an outermost pull of the given round-trip.
+     */
+    static void record(PullRoundTrip roundTrip, PullKey key, Object value) {
+        var counter = roundTrip.pullCounters.get(key);
+        if (counter == null) {
+            roundTrip.pullCounters.put(key, new PullCounter(value));
+        } else {
+            counter.record(value);
+        }
+    }
+
+    static void merge(PullRoundTrip roundTrip) {
+        if (!roundTrip.pullCounters.isEmpty()) {
+            roundTrips.increment();
+            roundTrip.pullCounters.forEach(RedundantPullDetector::merge);
+        }
+    }
+
+    private static void merge(PullKey key, PullCounter counter) {
+        var aspectKey = new AspectKey(key.getPmoClassName(), key.property, key.aspect);
+        var stats = statistics.get(aspectKey);
+        if (stats == null) {
+            if (statistics.size() >= MAX_KEYS) {
+                return;
+            }
+            stats = statistics.computeIfAbsent(aspectKey, k -> new AspectPullStats());
+        }
+        stats.roundTrips.increment();
+        stats.pulls.add(counter.pulls);
+        stats.unchangedPulls.add(counter.unchanged);
+        stats.changedPulls.add(counter.pulls - 1 - counter.unchanged);
+    }
+
+    /**
+     * Aspects with the most pulls that returned an unchanged value, most wasteful first.
+     */
+    public static Map<String, Object> getReport(int limit) {
+        var rows = statistics.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> -e.getValue().unchangedPulls.sum()))
+                .limit(limit)
+                .map(e -> toMap(e.getKey(), e.getValue()))
+                .toList();
+
+        var report = new HashMap<String, Object>();
+        report.put("enabled", enabled);
+        report.put("roundTrips", roundTrips.sum());
+        report.put("aspects", rows);
+        return report;
+    }
+
+    public static void reset() {
+        statistics.clear();
+        roundTrips.reset();
+    }
+
+    private static Map<String, Object> toMap(AspectKey key, AspectPullStats stats) {
+        var pulls = stats.pulls.sum();
+        var unchanged = stats.unchangedPulls.sum();
+        var map = new HashMap<String, Object>();
+        map.put("pmoClass", key.pmoClass());
+        map.put("property", key.property());
+        map.put("aspect", key.aspect());
+        map.put("roundTrips", stats.roundTrips.sum());
+        map.put("pulls", pulls);
+        map.put("unchangedPulls", unchanged);
+        map.put("pullsPerRoundTrip", (double) pulls / Math.max(1, stats.roundTrips.sum()));
+        map.put("unchangedRatio", pulls == 0 ? 0 : (double) unchanged / pulls);
+        // Never changed within any round-trip although pulled repeatedly
+        map.put("neverChanged", stats.changedPulls.sum() == 0 && unchanged > 0);
+        return map;
+    }
+
+    static final class PullCounter {
+        private Object lastValue;
+        private int pulls = 1;
+        private int unchanged;
+
+        private PullCounter(Object value) {
+            this.lastValue = value;
+        }
+
+        private void record(Object value) {
+            pulls++;
+            if (Objects.equals(lastValue, value)) {
+                unchanged++;
+            }
+            lastValue = value;
+        }
+    }
+
+    private record AspectKey(String pmoClass, String property, String aspect) {
+    }
+
+    private static final class AspectPullStats {
+        private final LongAdder roundTrips = new LongAdder();
+        private final LongAdder pulls = new LongAdder();
+        private final LongAdder unchangedPulls = new LongAdder();
+        private final LongAdder changedPulls = new LongAdder();
+    }
+}
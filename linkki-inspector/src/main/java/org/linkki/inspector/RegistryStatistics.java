@@ -0,0 +1,17 @@
+package org.linkki.inspector;
+
+/**
+ * Snapshot of the size and eviction activity of one inspector registry.
+ *
+ * @param name               registry name
+ * @param entries            number of live entries
+ * @param evictions          total number of entries evicted because their referent was garbage collected
+ * @param evictionsPerSecond average eviction rate since the registry was created
+ */
+public record RegistryStatistics(String name, int entries, long evictions, double evictionsPerSecond) {
+
+    static RegistryStatistics of(String name, int entries, long evictions, long createdAtNanos) {
+        var elapsedSeconds = Math.max(1e-3, (System.nanoTime() - createdAtNanos) / 1_000_000_000.0);
+        return new RegistryStatistics(name, entries, evictions, evictions / elapsedSeconds);
+    }
+}
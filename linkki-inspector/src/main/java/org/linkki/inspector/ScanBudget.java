@@ -0,0 +1,73 @@
+package org.linkki.inspector;
+
+/**
+ * Time and node limit of one hierarchy scan.
+ * <p>
+ * The clock starts with {@link #start()}, i.e. once the session lock is held, so waiting for the lock does not
+ * count. Once exhausted, the scan stops building nodes and returns what it has so far. The defaults can be set
+ * with {@code -Dlinkki.inspector.scanTimeMillis} (200) and {@code -Dlinkki.inspector.scanMaxNodes} (20,000).
+ * A budget is used by a single thread.
+ */
+public final class ScanBudget {
+
+    public static final long DEFAULT_TIME_MILLIS = Long.getLong("linkki.inspector.scanTimeMillis", 200);
+    public static final int DEFAULT_MAX_NODES = Integer.getInteger("linkki.inspector.scanMaxNodes", 20_000);
+
+    private final long timeNanos;
+    private final int maxNodes;
+
+    private long startedAt;
+    private long deadline;
+    private int visitedNodes;
+    private boolean exhausted;
+
+    private ScanBudget(long timeNanos, int maxNodes) {
+        this.timeNanos = timeNanos;
+        this.maxNodes = maxNodes;
+        start();
+    }
+
+    /**
+     * A budget with the given limits, the defaults for {@code null} values.
+     */
+    public static ScanBudget of(Long timeMillis, Integer maxNodes) {
+        return new ScanBudget(Math.max(1, timeMillis != null ? timeMillis : DEFAULT_TIME_MILLIS) * 1_000_000,
+                Math.max(1, maxNodes != null ? maxNodes : DEFAULT_MAX_NODES));
+    }
+
+    public static ScanBudget unlimited() {
+        return new ScanBudget(Long.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    public void start() {
+        startedAt = System.nanoTime();
+        deadline = startedAt + timeNanos;
+    }
+
+    /**
+     * Counts a node that is about to be built, or returns {@code false} if the budget is exhausted.
+     */
+    boolean tryVisit() {
+        if (exhausted) {
+            return false;
+        }
+        if (visitedNodes >= maxNodes || (timeNanos != Long.MAX_VALUE && System.nanoTime() - deadline > 0)) {
+            exhausted = true;
+            return false;
+        }
+        visitedNodes++;
+        return true;
+    }
+
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    public int getVisitedNodes() {
+        return visitedNodes;
+    }
+
+    public double getElapsedMillis() {
+        return (System.nanoTime() - startedAt) / 1_000_000.0;
+    }
+}
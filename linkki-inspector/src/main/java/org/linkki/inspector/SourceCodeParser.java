@@ -6,87 +6,70 @@ import org.linkki.inspector.code.SourceLocation;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.regex.Pattern;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
 
 import static org.linkki.inspector.ComponentInspector.getOutermostClassName;
 
 /**
- * Utility to find exact line numbers for methods and inner classes in Java source files
+ * Utility to find exact line numbers for methods and inner classes in Java source files.
+ * <p>
+ * Line numbers are determined by pluggable {@link LineNumberResolver}s, see {@link #setResolvers}.
  */
 public class SourceCodeParser {
 
     private static String sourceRoot = "src/main/java"; // Default, can be configured
 
+    // How long a cached index is trusted before its file's modification time is checked again
+    private static final long RECHECK_INTERVAL_NANOS = 2_000_000_000L;
+
+    // Source files first: they are re-read when modified, the compile-time index is not
+    private static volatile List<LineNumberResolver> resolvers = List.of(
+            new SourceFileLineNumberResolver(),
+            new IndexedLineNumberResolver(),
+            new BytecodeLineNumberResolver()
+    );
+
+    // Outer class name -> declaration index of its source file (null index if there is no source file)
+    private static final Map<String, CachedIndex> indexCache = new ConcurrentHashMap<>();
+
     /**
      * Find the line number where a method is defined
      */
     public static int findMethodLine(String className, String methodName) {
-        try {
-            var sourceCode = readSourceFile(className);
-            if (sourceCode == null) return -1;
-
-            // Pattern to find method declaration
-            // Handles: public void methodName(...) or private String methodName(...)
-            var pattern = "\\s+(public|private|protected|static|final|synchronized|abstract|native)*\\s*" +
-                    "[\\w<>\\[\\],\\s]+\\s+" + Pattern.quote(methodName) + "\\s*\\(";
+        var index = getDeclarationIndex(className);
+        return index != null ? index.findMethodLine(methodName) : -1;
+    }
 
-            return findLineNumber(sourceCode, pattern);
-        } catch (Exception e) {
-            System.err.println("Error finding method line: " + e.getMessage());
-            return -1;
-        }
+    /**
+     * Whether the source file of the given class is available below the source root.
+     */
+    public static boolean hasSourceFile(String className) {
+        return getDeclarationIndex(className) != null;
     }
 
     /**
      * Find the line number where an inner class is defined
      */
     public static int findInnerClassLine(String outerClassName, String innerClassName) {
-        try {
-            var sourceCode = readSourceFile(outerClassName);
-            if (sourceCode == null) return -1;
-
-            // Pattern to find inner class declaration
-            // Handles: public class InnerClass, private static class InnerClass, etc.
-            var pattern = "\\s+(public|private|protected|static|final)*\\s*" +
-                    "(class|interface|enum)\\s+" + Pattern.quote(innerClassName) + "\\s*[\\{<]";
-
-            return findLineNumber(sourceCode, pattern);
-        } catch (Exception e) {
-            System.err.println("Error finding inner class line: " + e.getMessage());
-            return -1;
-        }
+        var index = getDeclarationIndex(outerClassName);
+        return index != null ? index.findTypeLine(innerClassName) : -1;
     }
 
     /**
      * Find the line number of the class declaration
      */
     public static int findClassDeclarationLine(String className) {
-        try {
-            var sourceCode = readSourceFile(className);
-            if (sourceCode == null) return -1;
-
-            var simpleClassName = className.substring(className.lastIndexOf('.') + 1);
-
-            // Pattern to find class declaration
-            var pattern =
-                    // 1. Allow start of line and optional indentation
-                    "^\\s*" +
-                            // 2. Modifiers: Allow space after each modifier
-                            "((public|private|protected|static|final|abstract)\\s+)*" +
-                            // 3. Type declaration
-                            "(class|interface|enum)\\s+" +
-                            // 4. Class Name
-                            Pattern.quote(simpleClassName) +
-                            // 5. Allow Generics, Extends, Implements, and whitespace before the opening brace
-                            //    We match anything that is NOT an opening brace, followed by the brace.
-                            "[^\\{]*\\{";
-
-            return findLineNumber(sourceCode, pattern);
-        } catch (Exception e) {
-            System.err.println("Error finding class line: " + e.getMessage());
-            return -1;
-        }
+        var index = getDeclarationIndex(className);
+        if (index == null) return -1;
+
+        var simpleClassName = className.substring(className.lastIndexOf('.') + 1);
+        return index.findTypeLine(simpleClassName);
     }
 
     /**
@@ -97,34 +80,23 @@ public class SourceCodeParser {
 
         var lineNumber = location.getLineNumber();
         var className = location.getClassName();
-        String methodName = null;
-        if (location instanceof PropertyLocation) {
-            methodName = ((PropertyLocation) location).getMethodName();
-        }
+        var methodName = location instanceof PropertyLocation propertyLocation ? propertyLocation.getMethodName() : null;
 
         // If we already have a valid line number from stack trace, use it
         if (lineNumber > 1) {
             return location;
         }
 
-        // Otherwise, try to find the exact line
+        // Otherwise, ask the resolvers for the exact line
         if (methodName != null && !methodName.equals("<class>") && !methodName.equals("<init>")) {
             // Find method line
-            var foundLine = findMethodLine(className, methodName);
-            if (foundLine > 0) {
-                lineNumber = foundLine;
-            }
-        } else if (className.contains("$")) {
-            // Inner class - find the inner class definition
-            var outerClass = className.substring(0, className.lastIndexOf('$'));
-            var innerClass = className.substring(className.lastIndexOf('$') + 1);
-            var foundLine = findInnerClassLine(outerClass, innerClass);
+            var foundLine = findLine(resolver -> resolver.findMethodLine(className, methodName));
             if (foundLine > 0) {
                 lineNumber = foundLine;
             }
         } else {
-            // Find class declaration line
-            var foundLine = findClassDeclarationLine(className);
+            // Find class or inner class declaration line
+            var foundLine = findLine(resolver -> resolver.findClassLine(className));
             if (foundLine > 0) {
                 lineNumber = foundLine;
             }
@@ -148,31 +120,83 @@ public class SourceCodeParser {
         return location;
     }
 
+    private static int findLine(ToIntFunction<LineNumberResolver> lookup) {
+        for (var resolver : resolvers) {
+            var line = lookup.applyAsInt(resolver);
+            if (line > 0) {
+                return line;
+            }
+        }
+        return -1;
+    }
+
     /**
-     * Read source file content
+     * Sets the strategies used by {@link #enhanceLocation} to find line numbers, in order of preference.
+     * By default, source files are used if available, falling back to the compile-time PMO location index and
+     * then to the class files' line number tables.
      */
-    private static String readSourceFile(String className) {
-        try {
-            // Handle inner classes - use outer class file
-            var outerClassName = className.contains("$")
-                    ? className.substring(0, className.indexOf('$'))
-                    : className;
-
-            var relativePath = outerClassName.replace('.', '/') + ".java";
-            var sourcePath = Paths.get(sourceRoot, relativePath);
-
-            // Try alternative source roots if not found
-            if (!Files.exists(sourcePath)) {
-                // Try src/test/java
-                sourcePath = Paths.get("src/test/java", relativePath);
-            }
+    public static void setResolvers(List<? extends LineNumberResolver> lineNumberResolvers) {
+        resolvers = List.copyOf(lineNumberResolvers);
+    }
 
-            if (!Files.exists(sourcePath)) {
-                System.err.println("Source file not found: " + sourcePath);
-                return null;
-            }
+    public static List<LineNumberResolver> getResolvers() {
+        return resolvers;
+    }
+
+    /**
+     * Returns the (cached) declaration index of the source file containing the given class, or {@code null}
+     * if there is no such file. Each file is read once per modification.
+     */
+    private static SourceDeclarationIndex getDeclarationIndex(String className) {
+        // Handle inner classes - use outer class file
+        var outerClassName = className.contains("$")
+                ? className.substring(0, className.indexOf('$'))
+                : className;
+
+        var cached = indexCache.get(outerClassName);
+        var now = System.nanoTime();
+        if (cached != null && now - cached.checkedAt < RECHECK_INTERVAL_NANOS) {
+            return cached.index;
+        }
 
-            return Files.readString(sourcePath);
+        var sourcePath = findSourceFile(outerClassName);
+        var lastModified = lastModified(sourcePath);
+        if (cached != null && Objects.equals(cached.path, sourcePath) && cached.lastModified == lastModified) {
+            cached.checkedAt = now;
+            return cached.index;
+        }
+
+        var index = readIndex(sourcePath);
+        indexCache.put(outerClassName, new CachedIndex(sourcePath, lastModified, index, now));
+        return index;
+    }
+
+    private static Path findSourceFile(String outerClassName) {
+        var relativePath = outerClassName.replace('.', '/') + ".java";
+        var sourcePath = Paths.get(sourceRoot, relativePath);
+
+        // Try alternative source roots if not found
+        if (!Files.exists(sourcePath)) {
+            // Try src/test/java
+            sourcePath = Paths.get("src/test/java", relativePath);
+        }
+
+        return Files.exists(sourcePath) ? sourcePath : null;
+    }
+
+    private static long lastModified(Path path) {
+        if (path == null) return -1;
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static SourceDeclarationIndex readIndex(Path sourcePath) {
+        if (sourcePath == null) return null;
+        try {
+            return SourceDeclarationIndex.build(Files.readString(sourcePath));
         } catch (IOException e) {
             System.err.println("Error reading source file: " + e.getMessage());
             return null;
@@ -180,19 +204,15 @@ public class SourceCodeParser {
     }
 
     /**
-     * Find line number matching a regex pattern
+     * Drops all cached declaration indexes and the line tables of the {@link BytecodeLineNumberResolver}s.
      */
-    private static int findLineNumber(String sourceCode, String regexPattern) {
-        var pattern = Pattern.compile(regexPattern, Pattern.MULTILINE);
-        var matcher = pattern.matcher(sourceCode);
-
-        if (matcher.find()) {
-            // Count line breaks before the match
-            var beforeMatch = sourceCode.substring(0, matcher.start());
-            return beforeMatch.split("\n").length + 1;
+    public static void clearCache() {
+        indexCache.clear();
+        for (var resolver : resolvers) {
+            if (resolver instanceof BytecodeLineNumberResolver bytecodeResolver) {
+                bytecodeResolver.clearCache();
+            }
         }
-
-        return -1;
     }
 
     /**
@@ -200,6 +220,7 @@ public class SourceCodeParser {
      */
     public static void setSourceRoot(String root) {
         sourceRoot = root;
+        clearCache();
     }
 
     /**
@@ -208,4 +229,18 @@ public class SourceCodeParser {
     public static String getSourceRoot() {
         return sourceRoot;
     }
-}
\ No newline at end of file
+
+    private static final class CachedIndex {
+        private final Path path;
+        private final long lastModified;
+        private final SourceDeclarationIndex index;
+        private volatile long checkedAt;
+
+        CachedIndex(Path path, long lastModified, SourceDeclarationIndex index, long checkedAt) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.index = index;
+            this.checkedAt = checkedAt;
+        }
+    }
+}
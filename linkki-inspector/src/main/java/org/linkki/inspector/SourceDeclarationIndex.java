@@ -0,0 +1,124 @@
+package org.linkki.inspector;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Declarations of a single Java source file, built in one pass over its content.
+ * <p>
+ * Maps type names (classes, inner classes, interfaces, enums, records) and method names to the line of their
+ * first declaration, so that all lookups for a file are answered without scanning it again. A line-offset
+ * table maps character offsets to line numbers by binary search.
+ */
+public class SourceDeclarationIndex {
+
+    // class/interface/enum/record declarations, but not "Foo.class" literals
+    private static final Pattern TYPE_DECLARATION = Pattern.compile(
+            "(?<![.\\w])(?:class|interface|enum|record)\\s+(\\w+)");
+
+    private static final Pattern METHOD_DECLARATION = Pattern.compile(
+            // 1. Optional indentation and annotations on the same line
+            "^\\s*(?:@[\\w.]+(?:\\([^)]*\\))?\\s+)*" +
+                    // 2. Modifiers
+                    "(?:(?:public|private|protected|static|final|synchronized|abstract|native|default|strictfp)\\s+)*" +
+                    // 3. Optional type parameters
+                    "(?:<[^()]*?>\\s*)?" +
+                    // 4. Return type, including generics and arrays
+                    "([\\w.$]+)(?:<[^()]*?>)?(?:\\[\\])*\\s+" +
+                    // 5. Method name followed by the parameter list
+                    "(\\w+)\\s*\\(");
+
+    // Statements that look like "<type> <name>(" but are not declarations
+    private static final Set<String> NON_TYPE_KEYWORDS = Set.of("return", "new", "throw", "else", "case", "yield", "assert");
+
+    private final int[] lineStarts;
+    private final Map<String, Integer> typeLines;
+    private final Map<String, Integer> methodLines;
+
+    private SourceDeclarationIndex(int[] lineStarts, Map<String, Integer> typeLines, Map<String, Integer> methodLines) {
+        this.lineStarts = lineStarts;
+        this.typeLines = typeLines;
+        this.methodLines = methodLines;
+    }
+
+    public static SourceDeclarationIndex build(CharSequence source) {
+        var lineStarts = computeLineStarts(source);
+        var typeLines = new HashMap<String, Integer>();
+        var methodLines = new HashMap<String, Integer>();
+
+        var typeMatcher = TYPE_DECLARATION.matcher(source);
+        var methodMatcher = METHOD_DECLARATION.matcher(source);
+
+        for (var line = 0; line < lineStarts.length; line++) {
+            var start = lineStarts[line];
+            var end = line + 1 < lineStarts.length ? lineStarts[line + 1] : source.length();
+            if (isCommentLine(source, start, end)) {
+                continue;
+            }
+
+            typeMatcher.region(start, end);
+            while (typeMatcher.find()) {
+                typeLines.putIfAbsent(typeMatcher.group(1), line + 1);
+            }
+
+            methodMatcher.region(start, end);
+            if (methodMatcher.find() && !NON_TYPE_KEYWORDS.contains(methodMatcher.group(1))) {
+                methodLines.putIfAbsent(methodMatcher.group(2), line + 1);
+            }
+        }
+
+        return new SourceDeclarationIndex(lineStarts, typeLines, methodLines);
+    }
+
+    /**
+     * Line of the first declaration of the given (simple) type name, or -1.
+     */
+    public int findTypeLine(String simpleTypeName) {
+        return typeLines.getOrDefault(simpleTypeName, -1);
+    }
+
+    /**
+     * Line of the first declaration of the given method name, or -1.
+     */
+    public int findMethodLine(String methodName) {
+        return methodLines.getOrDefault(methodName, -1);
+    }
+
+    /**
+     * 1-based line number of a character offset.
+     */
+    public int lineOf(int offset) {
+        var index = Arrays.binarySearch(lineStarts, offset);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    public int getLineCount() {
+        return lineStarts.length;
+    }
+
+    private static int[] computeLineStarts(CharSequence source) {
+        var count = 1;
+        for (var i = 0; i < source.length(); i++) {
+            if (source.charAt(i) == '\n') count++;
+        }
+        var lineStarts = new int[count];
+        var line = 1;
+        for (var i = 0; i < source.length(); i++) {
+            if (source.charAt(i) == '\n') {
+                lineStarts[line++] = i + 1;
+            }
+        }
+        return lineStarts;
+    }
+
+    private static boolean isCommentLine(CharSequence source, int start, int end) {
+        var i = start;
+        while (i < end && Character.isWhitespace(source.charAt(i))) i++;
+        if (i >= end) return true;
+        var c = source.charAt(i);
+        return c == '*' || (c == '/' && i + 1 < end && (source.charAt(i + 1) == '/' || source.charAt(i + 1) == '*'));
+    }
+}
@@ -0,0 +1,25 @@
+package org.linkki.inspector;
+
+/**
+ * Resolves line numbers from the Java source files below {@link SourceCodeParser#getSourceRoot()}.
+ * <p>
+ * Exact, but only works when the sources are available in the working directory.
+ */
+public class SourceFileLineNumberResolver implements LineNumberResolver {
+
+    @Override
+    public int findMethodLine(String className, String methodName) {
+        return SourceCodeParser.findMethodLine(className, methodName);
+    }
+
+    @Override
+    public int findClassLine(String className) {
+        if (className.contains("$")) {
+            // Inner class - find the inner class definition
+            var outerClass = className.substring(0, className.lastIndexOf('$'));
+            var innerClass = className.substring(className.lastIndexOf('$') + 1);
+            return SourceCodeParser.findInnerClassLine(outerClass, innerClass);
+        }
+        return SourceCodeParser.findClassDeclarationLine(className);
+    }
+}
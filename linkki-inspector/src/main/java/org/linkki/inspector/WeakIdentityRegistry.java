@@ -0,0 +1,140 @@
+package org.linkki.inspector;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Concurrent registry with weakly referenced, identity-compared keys.
+ * <p>
+ * Entries are evicted once their key has been garbage collected. Cleared keys are drained from a
+ * {@link ReferenceQueue} on every write and whenever the size is queried, so the registry never keeps a
+ * Component or PMO reachable on its own.
+ * <p>
+ * Values must not reference their key strongly, otherwise the key can never be collected.
+ */
+public class WeakIdentityRegistry<K, V> {
+
+    private final String name;
+    private final Map<IdentityKey, V> entries = new ConcurrentHashMap<>();
+    private final ReferenceQueue<K> queue = new ReferenceQueue<>();
+    private final LongAdder evictions = new LongAdder();
+    private final long createdAt = System.nanoTime();
+
+    public WeakIdentityRegistry(String name) {
+        this.name = name;
+    }
+
+    public V put(K key, V value) {
+        expungeStaleEntries();
+        return entries.put(new WeakKey<>(key, queue), value);
+    }
+
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        var value = entries.get(new LookupKey(key));
+        if (value != null) {
+            return value;
+        }
+        expungeStaleEntries();
+        return entries.computeIfAbsent(new WeakKey<>(key, queue), k -> mappingFunction.apply(key));
+    }
+
+    public V get(K key) {
+        if (key == null) return null;
+        return entries.get(new LookupKey(key));
+    }
+
+    public boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    public V remove(K key) {
+        if (key == null) return null;
+        return entries.remove(new LookupKey(key));
+    }
+
+    public int size() {
+        expungeStaleEntries();
+        return entries.size();
+    }
+
+    /**
+     * Iterates over all entries whose key is still reachable.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        entries.forEach((key, value) -> {
+            var referent = (K) key.referent();
+            if (referent != null) {
+                action.accept(referent, value);
+            }
+        });
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public RegistryStatistics getStatistics() {
+        return RegistryStatistics.of(name, size(), evictions.sum(), createdAt);
+    }
+
+    private void expungeStaleEntries() {
+        Reference<? extends K> ref;
+        while ((ref = queue.poll()) != null) {
+            if (entries.remove(ref) != null) {
+                evictions.increment();
+            }
+        }
+    }
+
+    // ========== KEYS ==========
+
+    private interface IdentityKey {
+        Object referent();
+    }
+
+    private static final class WeakKey<K> extends WeakReference<K> implements IdentityKey {
+        private final int hash;
+
+        WeakKey(K referent, ReferenceQueue<K> queue) {
+            super(referent, queue);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        @Override
+        public Object referent() {
+            return get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof IdentityKey other)) return false;
+            var referent = get();
+            return referent != null && referent == other.referent();
+        }
+    }
+
+    private record LookupKey(Object referent) implements IdentityKey {
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(referent);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IdentityKey other && referent == other.referent();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.linkki.inspector;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent registry with strong keys and weakly referenced values.
+ * <p>
+ * Used to look up Components by their DOM id without keeping them alive. An entry disappears as soon as the
+ * value has been garbage collected.
+ */
+public class WeakValueRegistry<K, V> {
+
+    private final String name;
+    private final Map<K, ValueRef<K, V>> entries = new ConcurrentHashMap<>();
+    private final ReferenceQueue<V> queue = new ReferenceQueue<>();
+    private final LongAdder evictions = new LongAdder();
+    private final long createdAt = System.nanoTime();
+
+    public WeakValueRegistry(String name) {
+        this.name = name;
+    }
+
+    public void put(K key, V value) {
+        expungeStaleEntries();
+        entries.put(key, new ValueRef<>(key, value, queue));
+    }
+
+    public V get(K key) {
+        if (key == null) return null;
+        var ref = entries.get(key);
+        return ref != null ? ref.get() : null;
+    }
+
+    public void remove(K key) {
+        if (key == null) return;
+        entries.remove(key);
+    }
+
+    public int size() {
+        expungeStaleEntries();
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public RegistryStatistics getStatistics() {
+        return RegistryStatistics.of(name, size(), evictions.sum(), createdAt);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void expungeStaleEntries() {
+        Reference<? extends V> ref;
+        while ((ref = queue.poll()) != null) {
+            var valueRef = (ValueRef<K, V>) ref;
+            // Only remove the mapping if it was not replaced in the meantime
+            if (entries.remove(valueRef.key, valueRef)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private static final class ValueRef<K, V> extends WeakReference<V> {
+        private final K key;
+
+        ValueRef(K key, V value, ReferenceQueue<V> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.linkki.inspector.code;
+
+import java.io.Serializable;
+import java.util.function.Supplier;
+
+/**
+ * A source location that is only resolved when it is first requested.
+ * <p>
+ * Resolving locations (source parsing, line number lookups) is expensive compared to registering a component,
+ * and only a tiny fraction of all registered components is ever inspected. The resolver must not capture the
+ * component or PMO instance, only their classes and names.
+ */
+public final class DeferredLocation<T extends SourceLocation> implements Serializable {
+
+    private static final DeferredLocation<?> NONE = of(null);
+
+    private transient Supplier<? extends T> resolver;
+    private volatile T location;
+    private volatile boolean resolved;
+
+    private DeferredLocation(Supplier<? extends T> resolver, T location, boolean resolved) {
+        this.resolver = resolver;
+        this.location = location;
+        this.resolved = resolved;
+    }
+
+    public static <T extends SourceLocation> DeferredLocation<T> of(T location) {
+        return new DeferredLocation<>(null, location, true);
+    }
+
+    public static <T extends SourceLocation> DeferredLocation<T> deferred(Supplier<? extends T> resolver) {
+        return new DeferredLocation<>(resolver, null, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T extends SourceLocation> DeferredLocation<T> none() {
+        return (DeferredLocation<T>) NONE;
+    }
+
+    public T get() {
+        if (!resolved) {
+            synchronized (this) {
+                if (!resolved) {
+                    location = resolver != null ? resolver.get() : null;
+                    resolver = null;
+                    resolved = true;
+                }
+            }
+        }
+        return location;
+    }
+
+    public boolean isResolved() {
+        return resolved;
+    }
+}
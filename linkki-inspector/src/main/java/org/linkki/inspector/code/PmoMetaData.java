@@ -1,6 +1,7 @@
 package org.linkki.inspector.code;
 
 import java.io.Serializable;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -8,12 +9,14 @@ import java.util.List;
  * Enhanced metadata for PMO components including hierarchy and instantiation tracking
  */
 public class PmoMetaData implements Serializable {
-    private final Object pmoInstance;
+    // Weak, because the metadata is stored as value in registries keyed by the PMO (or the component itself)
+    private final transient WeakReference<Object> pmoInstance;
     private final String pmoClassName;
     private final String propertyName;
-    private final ClassLocation classLocation;
-    private final PropertyLocation propertyLocation;
-    private final SourceLocation instantiationLocation;
+    // Resolved on first access, see DeferredLocation
+    private final DeferredLocation<ClassLocation> classLocation;
+    private final DeferredLocation<PropertyLocation> propertyLocation;
+    private final DeferredLocation<? extends SourceLocation> instantiationLocation;
     private final List<PmoMetaData> children;
     private PmoMetaData parent;
 
@@ -23,7 +26,17 @@ public class PmoMetaData implements Serializable {
                        ClassLocation classLocation,
                        PropertyLocation propertyLocation,
                        SourceLocation instantiationLocation) {
-        this.pmoInstance = pmoInstance;
+        this(pmoInstance, pmoClassName, propertyName, DeferredLocation.of(classLocation),
+                DeferredLocation.of(propertyLocation), DeferredLocation.of(instantiationLocation));
+    }
+
+    public PmoMetaData(Object pmoInstance,
+                       String pmoClassName,
+                       String propertyName,
+                       DeferredLocation<ClassLocation> classLocation,
+                       DeferredLocation<PropertyLocation> propertyLocation,
+                       DeferredLocation<? extends SourceLocation> instantiationLocation) {
+        this.pmoInstance = new WeakReference<>(pmoInstance);
         this.pmoClassName = pmoClassName;
         this.propertyName = propertyName;
         this.classLocation = classLocation;
@@ -34,7 +47,7 @@ public class PmoMetaData implements Serializable {
 
     // Getters
     public Object getPmoInstance() {
-        return pmoInstance;
+        return pmoInstance != null ? pmoInstance.get() : null;
     }
 
     public String getPmoClassName() {
@@ -46,15 +59,15 @@ public class PmoMetaData implements Serializable {
     }
 
     public ClassLocation getClassLocation() {
-        return classLocation;
+        return classLocation.get();
     }
 
     public PropertyLocation getPropertyLocation() {
-        return propertyLocation;
+        return propertyLocation.get();
     }
 
     public SourceLocation getInstantiationLocation() {
-        return instantiationLocation;
+        return instantiationLocation.get();
     }
 
     public List<PmoMetaData> getChildren() {
@@ -104,6 +117,9 @@ public class PmoMetaData implements Serializable {
         node.className = getSimpleClassName();
         node.fullClassName = pmoClassName;
         node.propertyName = propertyName;
+        var classLocation = getClassLocation();
+        var propertyLocation = getPropertyLocation();
+        var instantiationLocation = getInstantiationLocation();
         node.hasInstantiationLocation = instantiationLocation != null;
 
         if (classLocation != null) {
@@ -152,6 +168,12 @@ public class PmoMetaData implements Serializable {
         public boolean hasInstantiationLocation;
         public List<HierarchyNode> children;
         public String componentId;
+        // The scan budget ran out before all children were scanned
+        public boolean truncated;
+        // Number of grid rows or sibling components of the same PMO class this node stands for, 0 if only itself
+        public int instanceCount;
+        // Number of children if they were not built because of a depth limit; children is null then
+        public transient int childCount;
     }
 
     public static class LocationInfo implements Serializable {
@@ -0,0 +1,202 @@
+package org.linkki.inspector.index;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compile-time index of PMO source locations: class → line, method → line and property → method.
+ * <p>
+ * The index is generated by {@link PmoLocationIndexProcessor} into {@value #RESOURCE_NAME} for every
+ * {@code @UISection}/{@code ContainerPmo} class (and every class with linkki UI annotations). At runtime,
+ * all index resources on the class path are loaded once and answer location queries without reflection or
+ * file I/O. The index is not reloaded when classes are recompiled, so the inspector only consults it for
+ * classes whose source file is not available.
+ * <p>
+ * Binary format: magic, version, a string table of UTF strings, then per class the indexes of its binary name,
+ * its declaration line, its methods (name, line) and its properties (property, method name).
+ */
+public class PmoLocationIndex {
+
+    public static final String RESOURCE_NAME = "META-INF/linkki-inspector/pmo-locations.idx";
+
+    private static final int MAGIC = 0x4C4B4958; // "LKIX"
+    private static final int VERSION = 1;
+
+    private static final PmoLocationIndex EMPTY = new PmoLocationIndex(Map.of());
+
+    private final Map<String, ClassEntry> classes;
+
+    PmoLocationIndex(Map<String, ClassEntry> classes) {
+        this.classes = classes;
+    }
+
+    /**
+     * The index of the current application, loaded on first access.
+     */
+    public static PmoLocationIndex getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    public boolean contains(String className) {
+        return classes.containsKey(className);
+    }
+
+    public int size() {
+        return classes.size();
+    }
+
+    /**
+     * Declaration line of the given class (binary name), or -1 if it is not indexed.
+     */
+    public int findClassLine(String className) {
+        var entry = classes.get(className);
+        return entry != null ? entry.classLine() : -1;
+    }
+
+    /**
+     * Declaration line of the given method, or -1 if it is not indexed.
+     */
+    public int findMethodLine(String className, String methodName) {
+        var entry = classes.get(className);
+        return entry != null ? entry.methodLines().getOrDefault(methodName, -1) : -1;
+    }
+
+    /**
+     * The method bound to the given property (getter, is-getter or method with the property's name) and its
+     * line, or {@code null} if it is not indexed.
+     */
+    public IndexedProperty findProperty(String className, String propertyName) {
+        var entry = classes.get(className);
+        if (entry == null) {
+            return null;
+        }
+        var methodName = entry.propertyMethods().get(propertyName);
+        if (methodName == null) {
+            return null;
+        }
+        return new IndexedProperty(methodName, entry.methodLines().getOrDefault(methodName, -1));
+    }
+
+    // ========== LOADING ==========
+
+    static PmoLocationIndex load(ClassLoader classLoader) {
+        try {
+            var resources = classLoader.getResources(RESOURCE_NAME);
+            if (!resources.hasMoreElements()) {
+                return EMPTY;
+            }
+            var classes = new HashMap<String, ClassEntry>();
+            while (resources.hasMoreElements()) {
+                try (var in = resources.nextElement().openStream()) {
+                    classes.putAll(read(in));
+                }
+            }
+            return new PmoLocationIndex(Collections.unmodifiableMap(classes));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Inspector: Failed to load PMO location index - " + e.getMessage());
+            return EMPTY;
+        }
+    }
+
+    static Map<String, ClassEntry> read(InputStream inputStream) throws IOException {
+        var in = new DataInputStream(new BufferedInputStream(inputStream));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a PMO location index");
+        }
+        var version = in.readUnsignedShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported PMO location index version " + version);
+        }
+
+        var strings = new String[in.readInt()];
+        for (var i = 0; i < strings.length; i++) {
+            strings[i] = in.readUTF();
+        }
+
+        var classCount = in.readInt();
+        var classes = new HashMap<String, ClassEntry>(classCount * 2);
+        for (var i = 0; i < classCount; i++) {
+            var className = strings[in.readInt()];
+            var classLine = in.readInt();
+
+            var methodCount = in.readInt();
+            var methodLines = new HashMap<String, Integer>(methodCount * 2);
+            for (var j = 0; j < methodCount; j++) {
+                methodLines.put(strings[in.readInt()], in.readInt());
+            }
+
+            var propertyCount = in.readInt();
+            var propertyMethods = new HashMap<String, String>(propertyCount * 2);
+            for (var j = 0; j < propertyCount; j++) {
+                propertyMethods.put(strings[in.readInt()], strings[in.readInt()]);
+            }
+
+            classes.put(className, new ClassEntry(classLine, methodLines, propertyMethods));
+        }
+        return classes;
+    }
+
+    static void write(Map<String, ClassEntry> classes, OutputStream outputStream) throws IOException {
+        var stringIndexes = new LinkedHashMap<String, Integer>();
+        classes.forEach((className, entry) -> {
+            stringIndexes.putIfAbsent(className, stringIndexes.size());
+            entry.methodLines().keySet().forEach(name -> stringIndexes.putIfAbsent(name, stringIndexes.size()));
+            entry.propertyMethods().forEach((property, method) -> {
+                stringIndexes.putIfAbsent(property, stringIndexes.size());
+                stringIndexes.putIfAbsent(method, stringIndexes.size());
+            });
+        });
+
+        var out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+
+        out.writeInt(stringIndexes.size());
+        for (var string : stringIndexes.keySet()) {
+            out.writeUTF(string);
+        }
+
+        out.writeInt(classes.size());
+        for (var classEntry : classes.entrySet()) {
+            var entry = classEntry.getValue();
+            out.writeInt(stringIndexes.get(classEntry.getKey()));
+            out.writeInt(entry.classLine());
+
+            out.writeInt(entry.methodLines().size());
+            for (var method : entry.methodLines().entrySet()) {
+                out.writeInt(stringIndexes.get(method.getKey()));
+                out.writeInt(method.getValue());
+            }
+
+            out.writeInt(entry.propertyMethods().size());
+            for (var property : entry.propertyMethods().entrySet()) {
+                out.writeInt(stringIndexes.get(property.getKey()));
+                out.writeInt(stringIndexes.get(property.getValue()));
+            }
+        }
+        out.flush();
+    }
+
+    record ClassEntry(int classLine, Map<String, Integer> methodLines, Map<String, String> propertyMethods) {
+    }
+
+    public record IndexedProperty(String methodName, int lineNumber) {
+    }
+
+    private static final class Holder {
+        private static final PmoLocationIndex INSTANCE = load(contextClassLoader());
+
+        private static ClassLoader contextClassLoader() {
+            var classLoader = Thread.currentThread().getContextClassLoader();
+            return classLoader != null ? classLoader : PmoLocationIndex.class.getClassLoader();
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package org.linkki.inspector.index;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.util.Trees;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Annotation processor that writes the {@link PmoLocationIndex} of all PMO classes of a compilation.
+ * <p>
+ * A class is indexed if it is annotated with {@code @UISection}, implements {@code ContainerPmo} or has
+ * methods with linkki UI annotations. Nested types of indexed classes are indexed as well. Line numbers are
+ * taken from the compiler's syntax trees, so they point to the declaration itself rather than the first line
+ * of code.
+ * <p>
+ * Registered via {@code META-INF/services/javax.annotation.processing.Processor}, so javac discovers it on the
+ * compile class path up to JDK 22; from JDK 23 on, discovery needs {@code -proc:full} or an explicit processor
+ * path. It never claims any annotation.
+ * <p>
+ * Incremental compilations only see some of the sources, so an existing index is merged: entries of classes
+ * outside the compilation are kept as long as the class still exists.
+ */
+@SupportedAnnotationTypes("*")
+public class PmoLocationIndexProcessor extends AbstractProcessor {
+
+    private static final String UI_SECTION = "org.linkki.core.ui.layout.annotation.UISection";
+    private static final String CONTAINER_PMO = "org.linkki.core.defaults.columnbased.pmo.ContainerPmo";
+    private static final String LINKKI_ANNOTATION_PREFIX = "org.linkki.core.";
+
+    private final Map<String, PmoLocationIndex.ClassEntry> entries = new TreeMap<>();
+    // Top-level classes of this compilation, their entries in an existing index are replaced
+    private final Set<String> compiledClasses = new HashSet<>();
+
+    private Trees trees;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (trees == null && !initTrees()) {
+            return false;
+        }
+
+        if (roundEnv.processingOver()) {
+            writeIndex();
+        } else {
+            for (var type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+                compiledClasses.add(processingEnv.getElementUtils().getBinaryName(type).toString());
+                scan(type, false);
+            }
+        }
+        return false;
+    }
+
+    private boolean initTrees() {
+        try {
+            trees = Trees.instance(processingEnv);
+            return true;
+        } catch (IllegalArgumentException e) {
+            // Not running inside javac (e.g. the Eclipse compiler), no syntax trees available
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                    "Inspector: PMO location index not generated, compiler trees are not available");
+            return false;
+        }
+    }
+
+    private void scan(TypeElement type, boolean enclosedInPmo) {
+        var indexed = enclosedInPmo || isPmo(type);
+        if (indexed) {
+            index(type);
+        }
+        for (var nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            scan(nested, indexed);
+        }
+    }
+
+    // ========== CLASSIFICATION ==========
+
+    private boolean isPmo(TypeElement type) {
+        if (hasAnnotation(type, UI_SECTION) || implementsContainerPmo(type.asType(), new HashSet<>())) {
+            return true;
+        }
+        return ElementFilter.methodsIn(type.getEnclosedElements()).stream()
+                .flatMap(method -> method.getAnnotationMirrors().stream())
+                .map(mirror -> ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString())
+                .anyMatch(name -> name.startsWith(LINKKI_ANNOTATION_PREFIX));
+    }
+
+    private static boolean hasAnnotation(Element element, String annotationName) {
+        return element.getAnnotationMirrors().stream()
+                .map(mirror -> ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName())
+                .anyMatch(name -> name.contentEquals(annotationName));
+    }
+
+    private boolean implementsContainerPmo(TypeMirror type, Set<String> visited) {
+        for (var supertype : processingEnv.getTypeUtils().directSupertypes(type)) {
+            if (supertype instanceof DeclaredType declaredType
+                    && declaredType.asElement() instanceof TypeElement element) {
+                var name = element.getQualifiedName().toString();
+                if (CONTAINER_PMO.equals(name)) {
+                    return true;
+                }
+                if (visited.add(name) && implementsContainerPmo(supertype, visited)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // ========== INDEXING ==========
+
+    private void index(TypeElement type) {
+        var path = trees.getPath(type);
+        if (path == null) {
+            return;
+        }
+        var compilationUnit = path.getCompilationUnit();
+        var source = readSource(compilationUnit);
+        if (source == null) {
+            return;
+        }
+
+        var classLine = findDeclarationLine(compilationUnit, source, type,
+                "(?:class|interface|enum|record)\\s+" + Pattern.quote(type.getSimpleName().toString()) + "\\b");
+
+        var methodLines = new HashMap<String, Integer>();
+        var propertyMethods = new HashMap<String, String>();
+        var propertyPriorities = new HashMap<String, Integer>();
+        for (var method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            var methodName = method.getSimpleName().toString();
+            var line = findDeclarationLine(compilationUnit, source, method,
+                    "\\b" + Pattern.quote(methodName) + "\\s*\\(");
+            if (line > 0) {
+                methodLines.merge(methodName, line, Math::min);
+            }
+            if (method.getParameters().isEmpty()) {
+                addProperty(method, propertyMethods, propertyPriorities);
+            }
+        }
+
+        var className = processingEnv.getElementUtils().getBinaryName(type).toString();
+        entries.put(className, new PmoLocationIndex.ClassEntry(classLine, methodLines, propertyMethods));
+    }
+
+    /**
+     * Maps a parameterless method to its property, using the same precedence as
+     * {@code ComponentInspector.findPropertyLocation}: getFoo before isFoo before foo.
+     */
+    private static void addProperty(ExecutableElement method, Map<String, String> propertyMethods,
+            Map<String, Integer> propertyPriorities) {
+        var methodName = method.getSimpleName().toString();
+        putProperty(methodName, methodName, 2, propertyMethods, propertyPriorities);
+        if (methodName.length() > 3 && methodName.startsWith("get")) {
+            putProperty(decapitalize(methodName.substring(3)), methodName, 0, propertyMethods, propertyPriorities);
+        } else if (methodName.length() > 2 && methodName.startsWith("is")) {
+            putProperty(decapitalize(methodName.substring(2)), methodName, 1, propertyMethods, propertyPriorities);
+        }
+    }
+
+    private static void putProperty(String property, String methodName, int priority,
+            Map<String, String> propertyMethods, Map<String, Integer> propertyPriorities) {
+        var existing = propertyPriorities.get(property);
+        if (existing == null || priority < existing) {
+            propertyMethods.put(property, methodName);
+            propertyPriorities.put(property, priority);
+        }
+    }
+
+    private static String decapitalize(String name) {
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * Line of the declaration name of the given element. The tree's start position includes annotations and
+     * modifiers, so the declaration itself is searched from there.
+     */
+    private int findDeclarationLine(CompilationUnitTree compilationUnit, CharSequence source, Element element,
+            String declarationPattern) {
+        var tree = trees.getTree(element);
+        if (tree == null) {
+            return -1;
+        }
+        var start = trees.getSourcePositions().getStartPosition(compilationUnit, tree);
+        if (start < 0) {
+            return -1;
+        }
+        var end = trees.getSourcePositions().getEndPosition(compilationUnit, tree);
+        var matcher = Pattern.compile(declarationPattern).matcher(source);
+        matcher.region((int) start, end > start ? (int) end : source.length());
+        var position = matcher.find() ? matcher.start() : start;
+        return (int) compilationUnit.getLineMap().getLineNumber(position);
+    }
+
+    private CharSequence readSource(CompilationUnitTree compilationUnit) {
+        try {
+            return compilationUnit.getSourceFile().getCharContent(true);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // ========== OUTPUT ==========
+
+    private void writeIndex() {
+        var kept = readPreviousIndex();
+        if (entries.isEmpty() && !kept.dropped()) {
+            return;
+        }
+        kept.entries().forEach(entries::putIfAbsent);
+        try {
+            var resource = processingEnv.getFiler()
+                    .createResource(StandardLocation.CLASS_OUTPUT, "", PmoLocationIndex.RESOURCE_NAME);
+            try (var out = resource.openOutputStream()) {
+                PmoLocationIndex.write(entries, out);
+            }
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                    "Inspector: Indexed source locations of " + entries.size() + " PMO classes");
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Inspector: Failed to write PMO location index - " + e.getMessage());
+        }
+    }
+
+    /**
+     * The entries of the index written by a previous compilation for classes that were not compiled this
+     * time and still exist, and whether any other entries were dropped.
+     */
+    private PreviousIndex readPreviousIndex() {
+        Map<String, PmoLocationIndex.ClassEntry> previous;
+        try {
+            var resource = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", PmoLocationIndex.RESOURCE_NAME);
+            try (var in = resource.openInputStream()) {
+                previous = PmoLocationIndex.read(in);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // No previous index (or an unreadable one, which is replaced)
+            return new PreviousIndex(Map.of(), false);
+        }
+
+        var kept = new HashMap<String, PmoLocationIndex.ClassEntry>();
+        previous.forEach((className, entry) -> {
+            var separator = className.indexOf('$');
+            var topLevel = separator > 0 ? className.substring(0, separator) : className;
+            if (!compiledClasses.contains(topLevel)
+                    && processingEnv.getElementUtils().getTypeElement(topLevel) != null) {
+                kept.put(className, entry);
+            }
+        });
+        return new PreviousIndex(kept, kept.size() < previous.size());
+    }
+
+    private record PreviousIndex(Map<String, PmoLocationIndex.ClassEntry> entries, boolean dropped) {
+    }
+}
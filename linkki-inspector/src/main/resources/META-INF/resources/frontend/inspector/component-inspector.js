@@ -34,7 +34,8 @@ class ComponentInspector {
             onInstantiationClick: (loc) => this.api.openInIDE(loc),
             onMenuAction: (action, data) => this.handleMenuAction(action, data),
             onNodeHover: (componentId) => this.highlightComponent(componentId),
-            onNodeHoverOut: () => this.removeComponentHighlight()
+            onNodeHoverOut: () => this.removeComponentHighlight(),
+            onHierarchyVisible: (visible) => this.subscribeHierarchyDeltas(visible)
         });
 
         // Init DOM elements
@@ -350,15 +351,17 @@ class ComponentInspector {
             // But if called from hierarchy button, we might need to fetch if data is incomplete.
             
             let history = data.dispatcherHistory;
+            let latency = data.dispatcherLatency;
             if (!history && data.componentId) {
                 // Fetch fresh data if history is missing but we have ID
                 const freshData = await this.api.fetchLocationData(data.componentId);
                 if (freshData) {
                     history = freshData.dispatcherHistory;
+                    latency = freshData.dispatcherLatency;
                 }
             }
             
-            this.ui.renderDispatcherHistory(history);
+            this.ui.renderDispatcherHistory(history, latency);
         }
     }
 
@@ -378,15 +381,36 @@ class ComponentInspector {
         }
 
         const componentId = anyPmo.getAttribute('data-component-id');
-        const data = await this.api.fetchLocationData(componentId);
+        const root = await this.api.fetchHierarchyLevel(componentId, null, {depth: 2});
 
-        if (data && data.hierarchy) {
-            this.ui.renderHierarchy(data.hierarchy);
+        if (root && !root.error) {
+            // Deeper levels and further pages are loaded when they are expanded
+            this.ui.renderHierarchy(root, (nodeId, offset) =>
+                this.api.fetchHierarchyLevel(componentId, nodeId, {offset}));
         } else {
             alert("Could not load hierarchy.");
         }
     }
 
+    /**
+     * Starts or stops the server push of hierarchy changes of this UI (see applyHierarchyDeltas).
+     */
+    subscribeHierarchyDeltas(subscribe) {
+        if (this.hierarchyDeltasSubscribed === subscribe) return;
+        const loader = document.querySelector('inspector-loader');
+        if (loader && loader.$server) {
+            this.hierarchyDeltasSubscribed = subscribe;
+            loader.$server.subscribeHierarchyDeltas(subscribe);
+        }
+    }
+
+    /**
+     * Called by the server with the coalesced hierarchy changes of one round-trip.
+     */
+    applyHierarchyDeltas(batch) {
+        this.ui.applyHierarchyDeltas(batch);
+    }
+
     getComponentId(element) {
         if (element.tagName && element.tagName.toLowerCase() === 'vaadin-form-item') {
             const childWithId = element.querySelector('[data-component-id]');
@@ -1,7 +1,11 @@
 export class InspectorAPI {
+    static MAX_BATCH_SIZE = 500;
+
     constructor(config) {
         this.contextPath = config.contextPath;
         this.inspectorPort = config.inspectorPort;
+        // Request the compact binary encoding; servers without it answer with JSON
+        this.compactWireFormat = config.compactWireFormat !== false;
     }
 
     log(msg, ...args) {
@@ -9,20 +13,213 @@ export class InspectorAPI {
         console.log(`%c[Inspector API] ${msg}`, 'color: #2196F3; font-weight: bold;', ...args);
     }
 
-    async fetchLocationData(componentId) {
+    /**
+     * Fetches an inspector endpoint and decodes its response, JSON or application/x-linkki-inspector.
+     * The browser inflates gzipped responses itself.
+     */
+    async fetchData(url, init = {}) {
+        const headers = {...(init.headers || {})};
+        if (this.compactWireFormat) {
+            headers['Accept'] = 'application/x-linkki-inspector, application/json;q=0.9';
+        }
+        const response = await fetch(url, {...init, headers});
+        const contentType = response.headers.get('Content-Type') || '';
+        if (contentType.startsWith('application/x-linkki-inspector')) {
+            return this.decodeWireFormat(await response.arrayBuffer());
+        }
+        return response.json();
+    }
+
+    /**
+     * Decodes the binary encoding of InspectorWireFormatConverter: a string table followed by one tagged
+     * value, with varint lengths and indexes.
+     */
+    decodeWireFormat(buffer) {
+        const bytes = new Uint8Array(buffer);
+        const view = new DataView(bytes.buffer, bytes.byteOffset, bytes.byteLength);
+        const utf8 = new TextDecoder();
+        let pos = 0;
+
+        const varint = () => {
+            let value = 0;
+            let factor = 1;
+            let b;
+            do {
+                b = bytes[pos++];
+                value += (b & 0x7f) * factor;
+                factor *= 128;
+            } while (b & 0x80);
+            return value;
+        };
+
+        const version = varint();
+        if (version !== 1) throw new Error(`Unsupported wire format version ${version}`);
+        const strings = new Array(varint());
+        for (let i = 0; i < strings.length; i++) {
+            const length = varint();
+            strings[i] = utf8.decode(bytes.subarray(pos, pos + length));
+            pos += length;
+        }
+
+        const value = () => {
+            switch (bytes[pos++]) {
+                case 0: return null;
+                case 1: return false;
+                case 2: return true;
+                case 3: {
+                    // Zigzag: the sign is the lowest bit. It is shifted out while reading, so that the
+                    // magnitude stays exact up to Number.MAX_SAFE_INTEGER
+                    let b = bytes[pos++];
+                    const negative = b & 1;
+                    let magnitude = (b & 0x7f) >>> 1;
+                    for (let factor = 64; b & 0x80; factor *= 128) {
+                        b = bytes[pos++];
+                        magnitude += (b & 0x7f) * factor;
+                    }
+                    return negative ? -magnitude - 1 : magnitude;
+                }
+                case 4: {
+                    const double = view.getFloat64(pos);
+                    pos += 8;
+                    return double;
+                }
+                case 5: return strings[varint()];
+                case 6: {
+                    const array = new Array(varint());
+                    for (let i = 0; i < array.length; i++) array[i] = value();
+                    return array;
+                }
+                case 7: {
+                    const object = {};
+                    for (let size = varint(); size > 0; size--) {
+                        const key = strings[varint()];
+                        object[key] = value();
+                    }
+                    return object;
+                }
+                default: throw new Error(`Invalid wire format tag at ${pos - 1}`);
+            }
+        };
+        return value();
+    }
+
+    /**
+     * Resolves the location data of a component. Calls made within the same tick are sent as one
+     * batch request to /inspector/locations.
+     */
+    fetchLocationData(componentId) {
         this.log("Fetching location for ID:", componentId);
+        if (!this.pendingLocations) {
+            this.pendingLocations = new Map();
+            setTimeout(() => this.flushLocationRequests(), 0);
+        }
+        let pending = this.pendingLocations.get(componentId);
+        if (!pending) {
+            pending = {};
+            pending.promise = new Promise(resolve => pending.resolve = resolve);
+            this.pendingLocations.set(componentId, pending);
+        }
+        return pending.promise;
+    }
+
+    async flushLocationRequests() {
+        const batch = [...this.pendingLocations];
+        this.pendingLocations = null;
+        // The server rejects requests with more ids than InspectorEndpoint.MAX_BATCH_SIZE
+        const chunks = [];
+        for (let i = 0; i < batch.length; i += InspectorAPI.MAX_BATCH_SIZE) {
+            chunks.push(batch.slice(i, i + InspectorAPI.MAX_BATCH_SIZE));
+        }
+        await Promise.all(chunks.map(chunk => this.fetchLocationChunk(new Map(chunk))));
+    }
+
+    async fetchLocationChunk(batch) {
         try {
             // Normalize context path: ensures /myApp format or empty string
             let ctx = this.contextPath || "";
             if (ctx && !ctx.startsWith("/")) ctx = "/" + ctx;
             if (ctx === "/") ctx = "";
 
-            const response = await fetch(`${ctx}/inspector/location?componentId=${componentId}`);
-            const json = await response.json();
+            const json = await this.fetchData(`${ctx}/inspector/locations`, {
+                method: 'POST',
+                headers: {'Content-Type': 'application/json'},
+                body: JSON.stringify([...batch.keys()])
+            });
             this.log("Received data:", json);
-            return json;
+            const results = this.decodeLocationRows(json);
+            batch.forEach((pending, componentId) =>
+                pending.resolve(results.get(componentId) || {error: json.error || 'Component instance not found'}));
         } catch (err) {
             console.error('[Inspector] Failed to fetch location:', err);
+            batch.forEach(pending => pending.resolve(null));
+        }
+    }
+
+    /**
+     * Turns the compact rows of /inspector/locations back into the objects returned by /inspector/location.
+     */
+    decodeLocationRows(json) {
+        const results = new Map();
+        const fields = json.fields || [];
+        const locationFields = json.locationFields || [];
+        const toLocation = row => row && Object.fromEntries(locationFields.map((f, i) => [f, row[i]]));
+
+        (json.rows || []).forEach(row => {
+            const data = Object.fromEntries(fields.map((f, i) => [f, row[i]]));
+            data.classLocation = toLocation(data.classLocation);
+            data.propertyLocation = toLocation(data.propertyLocation);
+            data.instantiationLocation = toLocation(data.instantiationLocation);
+            data.hasInstantiationLocation = !!data.instantiationLocation;
+            results.set(data.componentId, data);
+        });
+        return results;
+    }
+
+    /**
+     * Loads one level of the hierarchy of the UI containing componentId: the node nodeId (the UI root if
+     * omitted) with up to limit children starting at offset, depth levels deep, each with its childCount.
+     */
+    async fetchHierarchyLevel(componentId, nodeId, {depth = 1, offset = 0, limit = 100} = {}) {
+        try {
+            let ctx = this.contextPath || "";
+            if (ctx && !ctx.startsWith("/")) ctx = "/" + ctx;
+            if (ctx === "/") ctx = "";
+
+            const params = new URLSearchParams({componentId, depth, offset, limit});
+            if (nodeId) params.set('nodeId', nodeId);
+            let json = await this.fetchData(`${ctx}/inspector/hierarchy?${params}`);
+
+            // Each request holds the session lock only for its scan budget; continue truncated scans
+            // in further requests, the server keeps the subtrees completed so far
+            for (let i = 0; json.truncated && json.continuationToken && i < 20; i++) {
+                const token = encodeURIComponent(json.continuationToken);
+                json = await this.fetchData(`${ctx}/inspector/hierarchy/continue?token=${token}`);
+            }
+            this.log("Received hierarchy level:", json);
+            return json;
+        } catch (err) {
+            console.error('[Inspector] Failed to fetch hierarchy level:', err);
+            return null;
+        }
+    }
+
+    /**
+     * Switches which dispatcher pulls are analyzed:OFF, ALL, SAMPLED (1 in sampleRate) or TARGETED.
+     */
+    async setCaptureMode(mode, sampleRate) {
+        try {
+            let ctx = this.contextPath || "";
+            if (ctx && !ctx.startsWith("/")) ctx = "/" + ctx;
+            if (ctx === "/") ctx = "";
+
+            const params = new URLSearchParams({mode});
+            if (sampleRate) params.set('sampleRate', sampleRate);
+            const response = await fetch(`${ctx}/inspector/capture?${params}`, {method: 'POST'});
+            const json = await response.json();
+            this.log("Capture mode:", json);
+            return json;
+        } catch (err) {
+            console.error('[Inspector] Failed to set capture mode:', err);
             return null;
         }
     }
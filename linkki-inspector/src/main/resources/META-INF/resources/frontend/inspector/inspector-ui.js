@@ -1,6 +1,6 @@
 export class InspectorUI {
     constructor(handlers) {
-        this.handlers = handlers; // { onToggle, onHighlight, onHierarchy, onResetAll, onNodeClick, onInstantiationClick, onMenuAction, onNodeHover, onNodeHoverOut }
+        this.handlers = handlers; // { onToggle, onHighlight, onHierarchy, onResetAll, onNodeClick, onInstantiationClick, onMenuAction, onNodeHover, onNodeHoverOut, onHierarchyVisible }
         this.elements = {};
         this.menuOpen = false;
     }
@@ -238,7 +238,7 @@ export class InspectorUI {
         });
     }
 
-    renderDispatcherHistory(history) {
+    renderDispatcherHistory(history, latency) {
         let panel = this.elements.dispatcherPanel;
         // If for some reason it wasn't created (legacy support?), create it
         if (!panel) {
@@ -255,6 +255,8 @@ export class InspectorUI {
 
         let content = '<div class="dispatcher-content">';
 
+        content += this.buildLatencyHTML(latency);
+
         if (!history || history.length === 0) {
             content += '<div class="dispatcher-empty">No aspect history recorded.</div>';
         } else {
@@ -302,6 +304,35 @@ export class InspectorUI {
         };
     }
 
+    /**
+     * Pull cost per chain link, grouped by aspect; the most expensive link of each aspect is highlighted.
+     */
+    buildLatencyHTML(latency) {
+        if (!latency || latency.length === 0) return '';
+
+        const formatMicros = (value) => value >= 1000 ? `${(value / 1000).toFixed(1)} ms` : `${value.toFixed(1)} µs`;
+        const byAspect = {};
+        latency.forEach(row => (byAspect[row.aspect] = byAspect[row.aspect] || []).push(row));
+
+        let html = '<details class="aspect-details dispatcher-record dispatcher-latency"><summary class="dispatcher-summary">' +
+            '<div class="dispatcher-aspect-name">Pull Cost</div><div class="dispatcher-result-container"></div></summary>' +
+            '<div class="dispatcher-details-body">';
+        Object.entries(byAspect).forEach(([aspect, rows]) => {
+            html += `<div class="dispatcher-latency-aspect">${aspect}</div><div class="dispatcher-chain-container">`;
+            rows.forEach((row, index) => {
+                const dispatcher = row.dispatcher.substring(row.dispatcher.lastIndexOf('.') + 1);
+                html += `
+                    <div class="dispatcher-chain-item${index === 0 ? ' dispatcher-latency-dominant' : ''}">
+                        <span class="dispatcher-chain-class">${dispatcher} (${Math.round(row.share * 100)}%)</span>
+                        <span class="dispatcher-chain-value">p50 ${formatMicros(row.p50Micros)} · p99 ${formatMicros(row.p99Micros)} · ${Math.round(row.meanAllocatedBytes)} B · n=${row.count}</span>
+                    </div>`;
+            });
+            html += '</div>';
+        });
+        html += '</div></details>';
+        return html;
+    }
+
     setHierarchyPanelVisible(visible) {
         const panel = this.elements.hierarchyPanel;
         const btn = this.elements.hierarchyBtn;
@@ -313,10 +344,49 @@ export class InspectorUI {
             panel.style.display = 'none';
             if (btn) btn.style.background = 'linear-gradient(135deg, #757575 0%, #616161 100%)';
         }
+        if (this.handlers.onHierarchyVisible) this.handlers.onHierarchyVisible(visible);
     }
 
-    renderHierarchy(rootNode) {
+    /**
+     * Applies hierarchy changes pushed by the server to the open hierarchy panel. Nodes are only added
+     * below parents whose children are loaded; collapsed levels load the current state when expanded.
+     */
+    applyHierarchyDeltas(batch) {
+        const content = this.elements.hierarchyContent;
+        if (!batch || !content || this.elements.hierarchyPanel.style.display !== 'flex') return;
+        const findNode = id => content.querySelector(`.hierarchy-node[data-component-id="${CSS.escape(id)}"]`);
+
+        (batch.removed || []).forEach(id => {
+            const node = findNode(id);
+            if (node) node.remove();
+        });
+
+        (batch.rebound || []).forEach(([previousId, id]) => {
+            const node = findNode(previousId);
+            if (!node) return;
+            node.setAttribute('data-component-id', id);
+            node.querySelectorAll(':scope > .hierarchy-row [data-component-id]').forEach(el => el.setAttribute('data-component-id', id));
+        });
+
+        (batch.added || []).forEach(([id, parentId, className, propertyName]) => {
+            if (findNode(id)) return;
+            // Without a parent id the component is a top-level node below the synthetic UI root
+            const parent = parentId ? findNode(parentId) : content.querySelector('.hierarchy-node');
+            const container = parent && parent.querySelector(':scope > .hierarchy-children');
+            if (!container || container.dataset.loaded === 'false') return;
+            container.insertAdjacentHTML('beforeend', this.buildHierarchyHTML({componentId: id, className, propertyName, childCount: 0}));
+        });
+
+        this.attachHierarchyHandlers();
+    }
+
+    /**
+     * Renders a hierarchy level. loadLevel(nodeId, offset) is called to load children that were not
+     * part of the level yet, when a node is expanded or more children are requested.
+     */
+    renderHierarchy(rootNode, loadLevel) {
         if (!rootNode) return;
+        this.hierarchyLoader = loadLevel;
         this.elements.hierarchyContent.innerHTML = this.buildHierarchyHTML(rootNode);
         this.setHierarchyPanelVisible(true);
         this.attachHierarchyHandlers();
@@ -324,7 +394,9 @@ export class InspectorUI {
 
     buildHierarchyHTML(node) {
         const children = node.children || [];
-        const hasChildren = children.length > 0;
+        const childCount = node.childCount ?? children.length;
+        const hasChildren = childCount > 0;
+        const loaded = !!node.children || !hasChildren;
         const displayClassName = node.className;
         const displayPropName = node.propertyName;
         const locationData = node.propertyLocation || node.classLocation;
@@ -377,30 +449,74 @@ export class InspectorUI {
             </div>`;
         }
 
+        // Grid rows and repeated components are sampled, the node stands for all instances of its PMO class
+        const instanceCountHtml = node.instanceCount > 1
+            ? `<span class="hierarchy-instance-count" title="${node.instanceCount} instances, only a sample is inspected">×${node.instanceCount}</span>`
+            : '';
+
+        // The server ran out of scan budget before all children of this node were scanned
+        const truncatedHtml = node.truncated
+            ? `<span class="hierarchy-truncated" title="Not all children were scanned, reopen the hierarchy to continue">…</span>`
+            : '';
+
         const expanderHtml = hasChildren
-            ? `<div class="hierarchy-expander open"><svg width="10" height="10" viewBox="0 0 24 24" fill="none" stroke="#546E7A" stroke-width="3" stroke-linecap="round" stroke-linejoin="round"><polyline points="9 18 15 12 9 6"/></svg></div>`
+            ? `<div class="hierarchy-expander${loaded ? ' open' : ''}"><svg width="10" height="10" viewBox="0 0 24 24" fill="none" stroke="#546E7A" stroke-width="3" stroke-linecap="round" stroke-linejoin="round"><polyline points="9 18 15 12 9 6"/></svg></div>`
             : `<div class="hierarchy-expander empty"></div>`;
 
         let html = `<div class="hierarchy-node" data-component-id="${node.componentId || ''}">
             <div class="hierarchy-row">${expanderHtml}
                 <div class="${isNavigable ? 'hierarchy-content navigable' : 'hierarchy-content system'}" ${dataAttrs} title="${displayClassName}">
-                    ${icon}<div style="display: flex; align-items: center; white-space: nowrap;">${labelHtml}${instantiationHtml}${historyHtml}</div>
+                    ${icon}<div style="display: flex; align-items: center; white-space: nowrap;">${labelHtml}${instanceCountHtml}${truncatedHtml}${instantiationHtml}${historyHtml}</div>
                 </div>
             </div>`;
 
         if (hasChildren) {
-            html += `<div class="hierarchy-children">${children.map(c => this.buildHierarchyHTML(c)).join('')}</div>`;
+            const childrenHtml = this.buildHierarchyChildrenHTML(node.componentId, children, node.offset || 0, childCount);
+            html += `<div class="hierarchy-children${loaded ? '' : ' hidden'}" data-loaded="${loaded}">${childrenHtml}</div>`;
         }
         html += `</div>`;
         return html;
     }
 
+    buildHierarchyChildrenHTML(parentId, children, offset, childCount) {
+        let html = children.map(c => this.buildHierarchyHTML(c)).join('');
+        const next = offset + children.length;
+        if (next < childCount) {
+            html += `<div class="hierarchy-more" data-parent-id="${parentId || ''}" data-offset="${next}">Show more (${childCount - next} remaining)</div>`;
+        }
+        return html;
+    }
+
+    async loadHierarchyChildren(container, parentId, offset) {
+        if (!this.hierarchyLoader) return false;
+        const level = await this.hierarchyLoader(parentId || null, offset);
+        if (!level || level.error) return false;
+        container.insertAdjacentHTML('beforeend',
+            this.buildHierarchyChildrenHTML(parentId, level.children || [], level.offset || 0, level.childCount));
+        this.attachHierarchyHandlers();
+        return true;
+    }
+
     attachHierarchyHandlers() {
         // Expander logic
         this.elements.hierarchyContent.querySelectorAll('.hierarchy-expander:not(.empty)').forEach(exp => {
             exp.onclick = (e) => {
                 e.stopPropagation();
-                const container = exp.closest('.hierarchy-node').querySelector('.hierarchy-children');
+                const node = exp.closest('.hierarchy-node');
+                const container = node.querySelector('.hierarchy-children');
+                if (container && container.dataset.loaded === 'false') {
+                    // Not part of the loaded level yet, fetch the first page of children
+                    container.dataset.loaded = 'true';
+                    this.loadHierarchyChildren(container, node.getAttribute('data-component-id'), 0).then(ok => {
+                        if (!ok) {
+                            container.dataset.loaded = 'false';
+                            return;
+                        }
+                        container.classList.remove('hidden');
+                        exp.classList.add('open');
+                    });
+                    return;
+                }
                 if (container) {
                     if (container.classList.contains('hidden')) {
                         container.classList.remove('hidden');
@@ -413,6 +529,18 @@ export class InspectorUI {
             };
         });
 
+        // Load further pages of children
+        this.elements.hierarchyContent.querySelectorAll('.hierarchy-more').forEach(more => {
+            more.onclick = (e) => {
+                e.stopPropagation();
+                const container = more.parentElement;
+                const parentId = more.getAttribute('data-parent-id');
+                const offset = parseInt(more.getAttribute('data-offset')) || 0;
+                more.remove();
+                this.loadHierarchyChildren(container, parentId, offset);
+            };
+        });
+
         // Click on class name logic
         this.elements.hierarchyContent.querySelectorAll('.hierarchy-content.navigable').forEach(item => {
             item.onclick = (e) => {
@@ -0,0 +1,101 @@
+package org.linkki.inspector;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class InspectorWireFormatConverterTest {
+
+    private static final Path INSPECTOR_API =
+            Path.of("src/main/resources/META-INF/resources/frontend/inspector/inspector-api.js");
+
+    // Decodes base64 arguments with InspectorAPI.decodeWireFormat and prints them as JSON, one per line
+    private static final String DECODER = """
+            const {InspectorAPI} = await import(process.argv[1]);
+            const api = new InspectorAPI({});
+            for (const encoded of process.argv.slice(2)) {
+                const bytes = Buffer.from(encoded, 'base64');
+                console.log(JSON.stringify(api.decodeWireFormat(bytes.buffer.slice(bytes.byteOffset, bytes.byteOffset + bytes.length))));
+            }
+            """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testEncode_DecodedByInspectorApi() throws Exception {
+        var values = List.of(
+                "null", "true", "false", "0", "-1", "63", "-64", "64", "-65", "300",
+                "9007199254740991", "-9007199254740991", "1.5", "-0.25", "1.0E-300",
+                "\"\"", "\"Grüße ✓\"", "[]", "{}",
+                """
+                {"componentId": "c1", "children": [
+                    {"componentId": "c2", "lineNumber": 12, "children": []},
+                    {"componentId": "c3", "lineNumber": -7, "truncated": true, "className": null}],
+                 "scanMillis": 0.125}
+                """);
+
+        var decoded = decodeWithInspectorApi(values.stream()
+                .map(value -> Base64.getEncoder().encodeToString(encode(value)))
+                .toList());
+
+        for (var i = 0; i < values.size(); i++) {
+            assertEquals(objectMapper.readTree(values.get(i)), objectMapper.readTree(decoded.get(i)));
+        }
+    }
+
+    @Test
+    void testEncode_StoresStringsOnce() throws IOException {
+        var bytes = encode("""
+                [{"className": "FooPmo"}, {"className": "FooPmo"}, {"className": "FooPmo"}]
+                """);
+
+        var text = new String(bytes, StandardCharsets.ISO_8859_1);
+        assertEquals(text.indexOf("FooPmo"), text.lastIndexOf("FooPmo"));
+        assertEquals(text.indexOf("className"), text.lastIndexOf("className"));
+    }
+
+    @Test
+    void testCanWrite_OutsideInspectorRequest() {
+        var converter = new InspectorWireFormatConverter(objectMapper);
+
+        assertFalse(converter.canWrite(Map.class, InspectorWireFormatConverter.MEDIA_TYPE));
+        assertFalse(converter.canWrite(String.class, InspectorWireFormatConverter.MEDIA_TYPE));
+    }
+
+    private byte[] encode(String json) {
+        try {
+            return InspectorWireFormatConverter.encode(objectMapper.readTree(json));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<String> decodeWithInspectorApi(List<String> encoded) throws Exception {
+        var command = new ArrayList<>(List.of("node", "--input-type=module", "-e", DECODER,
+                INSPECTOR_API.toAbsolutePath().toUri().toString()));
+        command.addAll(encoded);
+        Process process;
+        try {
+            process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        } catch (IOException e) {
+            assumeTrue(false, "Node.js is not available");
+            throw e;
+        }
+        var output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assumeTrue(process.waitFor(30, TimeUnit.SECONDS));
+        assertEquals(0, process.exitValue(), output);
+        return output.lines().toList();
+    }
+}
@@ -0,0 +1,130 @@
+package org.linkki.inspector.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.ToolProvider;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PmoLocationIndexTest {
+
+    private static final String MARKER = """
+            package org.linkki.core.test;
+
+            public @interface Marker {
+            }
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWriteRead() throws IOException {
+        var classes = new TreeMap<String, PmoLocationIndex.ClassEntry>();
+        classes.put("com.example.FooPmo", new PmoLocationIndex.ClassEntry(12,
+                Map.of("getName", 20, "isActive", 25, "update", 30),
+                Map.of("name", "getName", "active", "isActive", "getName", "getName")));
+        classes.put("com.example.FooPmo$Row", new PmoLocationIndex.ClassEntry(40, Map.of(), Map.of()));
+
+        var out = new ByteArrayOutputStream();
+        PmoLocationIndex.write(classes, out);
+
+        assertEquals(classes, PmoLocationIndex.read(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    @Test
+    void testRead_NotAnIndex() {
+        var bytes = new byte[] { 0, 1, 2, 3, 4, 5 };
+
+        assertThrows(IOException.class, () -> PmoLocationIndex.read(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    void testProcessor_MergesIncrementalCompilation() throws IOException {
+        writeSource("org/linkki/core/test/Marker.java", MARKER);
+        writeSource("com/example/APmo.java", pmo("APmo", ""));
+        writeSource("com/example/BPmo.java", pmo("BPmo", ""));
+        compile("org/linkki/core/test/Marker.java", "com/example/APmo.java", "com/example/BPmo.java");
+        assertEquals(6, readIndex().get("com.example.APmo").methodLines().get("getValue"));
+
+        // Only A is recompiled, with its method moved down
+        writeSource("com/example/APmo.java", pmo("APmo", "\n\n"));
+        compile("com/example/APmo.java");
+
+        var index = readIndex();
+        assertEquals(8, index.get("com.example.APmo").methodLines().get("getValue"));
+        assertTrue(index.containsKey("com.example.BPmo"));
+    }
+
+    @Test
+    void testProcessor_DropsRemovedClasses() throws IOException {
+        writeSource("org/linkki/core/test/Marker.java", MARKER);
+        writeSource("com/example/APmo.java", pmo("APmo", ""));
+        writeSource("com/example/BPmo.java", pmo("BPmo", ""));
+        compile("org/linkki/core/test/Marker.java", "com/example/APmo.java", "com/example/BPmo.java");
+
+        Files.delete(tempDir.resolve("out/com/example/BPmo.class"));
+        writeSource("com/example/APmo.java", """
+                package com.example;
+
+                public class APmo {
+                }
+                """);
+        compile("com/example/APmo.java");
+
+        var index = readIndex();
+        assertFalse(index.containsKey("com.example.BPmo"));
+        assertFalse(index.containsKey("com.example.APmo"));
+    }
+
+    private static String pmo(String className, String padding) {
+        return """
+                package com.example;
+
+                public class %s {
+                %s
+                    @org.linkki.core.test.Marker
+                    public String getValue() {
+                        return "";
+                    }
+                }
+                """.formatted(className, padding);
+    }
+
+    private void writeSource(String path, String content) throws IOException {
+        var file = tempDir.resolve("src").resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    private void compile(String... paths) throws IOException {
+        var out = Files.createDirectories(tempDir.resolve("out"));
+        var compiler = ToolProvider.getSystemJavaCompiler();
+        try (var fileManager = compiler.getStandardFileManager(null, null, null)) {
+            var sources = fileManager.getJavaFileObjectsFromPaths(
+                    List.of(paths).stream().map(tempDir.resolve("src")::resolve).toList());
+            var task = compiler.getTask(null, fileManager, null,
+                    List.of("-d", out.toString(), "-classpath", out.toString()), null, sources);
+            task.setProcessors(List.of(new PmoLocationIndexProcessor()));
+            assertTrue(task.call());
+        }
+    }
+
+    private Map<String, PmoLocationIndex.ClassEntry> readIndex() throws IOException {
+        try (var in = Files.newInputStream(tempDir.resolve("out").resolve(PmoLocationIndex.RESOURCE_NAME))) {
+            return PmoLocationIndex.read(in);
+        }
+    }
+}
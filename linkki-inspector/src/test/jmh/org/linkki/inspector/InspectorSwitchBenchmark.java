@@ -0,0 +1,56 @@
+package org.linkki.inspector;
+
+import com.vaadin.flow.component.html.Div;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the inspector advice while {@link InspectorSwitch} is off or on.
+ * <p>
+ * Each parameter runs in its own fork, so the JIT compiles the switch as a constant. Run it once without and
+ * once with the AspectJ agent (see the README); without the agent and with the switch off, constructing a
+ * component should cost the same.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InspectorSwitchBenchmark {
+
+    @Param({"false", "true"})
+    public boolean inspectorOn;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (inspectorOn) {
+            InspectorSwitch.enable();
+        } else {
+            InspectorSwitch.disable();
+        }
+    }
+
+    @Benchmark
+    public boolean checkSwitch() {
+        return InspectorSwitch.isOn();
+    }
+
+    @Benchmark
+    public Div createComponent() {
+        // Woven with the component constructor advice when the agent is attached
+        return new Div();
+    }
+}